@@ -0,0 +1,79 @@
+package gkimfl.util.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Building a queue of a given size: by offering one item at a time, from a
+ * collection at construction, and by addAll to a queue that already holds
+ * half of the items. Positions are not tracked, so large heaps heapify in
+ * parallel.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BuildBenchmark {
+    @Param({ "Heap", "IntervalHeap", "DualQueue", "PriorityQueue", "TreeMap", "ArrayDeque" })
+    String queue;
+
+    @Param({ "10", "1000", "100000", "10000000" })
+    int size;
+
+    @Param({ "random", "sorted", "reverse", "duplicates" })
+    String keys;
+
+    List<Item> items;
+    List<Item> firstHalf;
+    List<Item> secondHalf;
+
+    @Setup
+    public void setUp() {
+        Keys gen = new Keys(keys, 42);
+        items = new ArrayList<Item>(size);
+        for (int i = 0; i < size; ++i) {
+            items.add(new Item(gen.next(), i));
+        }
+        firstHalf = items.subList(0, size / 2);
+        secondHalf = items.subList(size / 2, size);
+    }
+
+    @Benchmark
+    public Subject offer() {
+        Subject subject = Subject.create(queue, false);
+        for (Item e : items) {
+            subject.offer(e);
+        }
+        return subject;
+    }
+
+    @Benchmark
+    public Subject heapify() {
+        Subject subject = Subject.create(queue, false);
+        subject.build(items);
+        return subject;
+    }
+
+    @Benchmark
+    public Subject addAll() {
+        Subject subject = Subject.create(queue, false);
+        subject.build(firstHalf);
+        subject.addAll(secondHalf);
+        return subject;
+    }
+}
@@ -0,0 +1,109 @@
+package gkimfl.util.bench;
+
+import gkimfl.util.CalendarQueue;
+import gkimfl.util.Heap;
+import gkimfl.util.LongKey;
+import gkimfl.util.RadixHeap;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Event queues of a discrete event simulation, in the classic hold model:
+ * remove the next event, and schedule another after it by a random delay.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalendarQueueBenchmark {
+    @Param({ "CalendarQueue", "RadixHeap", "Heap", "PriorityQueue" })
+    String queue;
+
+    @Param({ "1000000", "10000000" })
+    int events;
+
+    @Param({ "exponential", "uniform" })
+    String delays;
+
+    static final class Event {
+        long time;
+
+        Event(long time) {
+            this.time = time;
+        }
+    }
+
+    static final LongKey<Event> TIME = new LongKey<Event>() {
+        @Override
+        public long get(Event o) {
+            return o.time;
+        }
+    };
+
+    static final Comparator<Event> BY_TIME = new Comparator<Event>() {
+        @Override
+        public int compare(Event a, Event b) {
+            return a.time < b.time ? -1 : a.time > b.time ? +1 : 0;
+        }
+    };
+
+    SplittableRandom rand;
+    Queue<Event> q;
+
+    @Setup
+    public void setUp() {
+        rand = new SplittableRandom(42);
+        if (queue.equals("CalendarQueue")) {
+            q = new CalendarQueue<Event>(TIME);
+        }
+        else if (queue.equals("RadixHeap")) {
+            q = new RadixHeap<Event>(TIME);
+        }
+        else if (queue.equals("Heap")) {
+            q = new Heap<Event>(BY_TIME);
+        }
+        else if (queue.equals("PriorityQueue")) {
+            q = new PriorityQueue<Event>(BY_TIME);
+        }
+        else {
+            throw new IllegalArgumentException("unknown queue " + queue);
+        }
+        for (int i = 0; i < events; ++i) {
+            q.offer(new Event(delay()));
+        }
+    }
+
+    private long delay() {
+        if (delays.equals("exponential")) {
+            return (long) (-Math.log(1 - rand.nextDouble()) * 1000000);
+        }
+        return rand.nextLong(2000000);
+    }
+
+    @Benchmark
+    public long hold() {
+        Event e = q.poll();
+        long now = e.time;
+        e.time = now + delay();
+        q.offer(e);
+        return now;
+    }
+}
@@ -0,0 +1,107 @@
+package gkimfl.util.bench;
+
+import gkimfl.util.ConcurrentIntervalHeap;
+import gkimfl.util.IntervalHeap;
+import gkimfl.util.MultiQueue;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of queues shared by several threads, in the hold model. The
+ * number of threads may be changed with -t.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class ConcurrentBenchmark {
+    @Param({ "ConcurrentIntervalHeap", "SynchronizedIntervalHeap", "MultiQueue", "PriorityBlockingQueue" })
+    String queue;
+
+    @Param({ "1000", "100000" })
+    int size;
+
+    Queue<Long> q;
+
+    /**
+     * IntervalHeap behind one lock.
+     */
+    static class SynchronizedIntervalHeap extends AbstractQueue<Long> {
+        private final IntervalHeap<Long> heap = new IntervalHeap<Long>();
+
+        @Override
+        public synchronized boolean offer(Long e) {
+            return heap.offer(e);
+        }
+
+        @Override
+        public synchronized Long poll() {
+            return heap.isEmpty() ? null : heap.pollFirst();
+        }
+
+        @Override
+        public synchronized Long peek() {
+            return heap.isEmpty() ? null : heap.peekFirst();
+        }
+
+        @Override
+        public Iterator<Long> iterator() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public synchronized int size() {
+            return heap.size();
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        if (queue.equals("ConcurrentIntervalHeap")) {
+            q = new ConcurrentIntervalHeap<Long>(2 * size + 1024);
+        }
+        else if (queue.equals("SynchronizedIntervalHeap")) {
+            q = new SynchronizedIntervalHeap();
+        }
+        else if (queue.equals("MultiQueue")) {
+            q = new MultiQueue<Long>();
+        }
+        else if (queue.equals("PriorityBlockingQueue")) {
+            q = new PriorityBlockingQueue<Long>();
+        }
+        else {
+            throw new IllegalArgumentException("unknown queue " + queue);
+        }
+        for (int i = 0; i < size; ++i) {
+            q.offer(ThreadLocalRandom.current().nextLong());
+        }
+    }
+
+    @Benchmark
+    public Long poll() {
+        Long v = q.poll();
+        q.offer(ThreadLocalRandom.current().nextLong());
+        return v;
+    }
+}
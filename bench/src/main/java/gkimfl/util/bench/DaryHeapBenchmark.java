@@ -0,0 +1,57 @@
+package gkimfl.util.bench;
+
+import gkimfl.util.Heap;
+import gkimfl.util.MutableInt;
+import gkimfl.util.NaturalComparator;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Heap of each arity, in the hold model with random keys, to find where a
+ * wider heap overtakes the binary heap.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DaryHeapBenchmark {
+    @Param({ "2", "4", "8", "16" })
+    int arity;
+
+    @Param({ "1000", "100000", "10000000" })
+    int size;
+
+    SplittableRandom rand;
+    Heap<Long> heap;
+
+    @Setup
+    public void setUp() {
+        rand = new SplittableRandom(42);
+        heap = new Heap<Long>(size, new NaturalComparator<Long>(), new MutableInt<Long>(), arity);
+        for (int i = 0; i < size; ++i) {
+            heap.offer(rand.nextLong());
+        }
+    }
+
+    @Benchmark
+    public Long poll() {
+        Long v = heap.poll();
+        heap.offer(rand.nextLong());
+        return v;
+    }
+}
@@ -0,0 +1,79 @@
+package gkimfl.util.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Steady state removal from both ends of a double ended queue of a fixed
+ * size, in the hold model.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DequeBenchmark {
+    @Param({ "IntervalHeap", "DualQueue", "TreeMap", "ArrayDeque" })
+    String queue;
+
+    @Param({ "10", "1000", "100000", "10000000" })
+    int size;
+
+    @Param({ "random", "sorted", "reverse", "duplicates" })
+    String keys;
+
+    Subject subject;
+    Keys gen;
+    int nextId;
+
+    @Setup
+    public void setUp() {
+        subject = Subject.create(queue, false);
+        gen = new Keys(keys, 42);
+        for (int i = 0; i < size; ++i) {
+            subject.offer(new Item(gen.next(), nextId++));
+        }
+    }
+
+    @Benchmark
+    public Item pollFirst() {
+        Item e = subject.pollFirst();
+        e.key = gen.next();
+        subject.offer(e);
+        return e;
+    }
+
+    @Benchmark
+    public Item pollLast() {
+        Item e = subject.pollLast();
+        e.key = gen.next();
+        subject.offer(e);
+        return e;
+    }
+
+    /**
+     * Remove from each end in turn, as a sliding window of extremes does.
+     */
+    @Benchmark
+    public Item pollBoth() {
+        Item e = subject.pollFirst();
+        e.key = gen.next();
+        subject.offer(e);
+        e = subject.pollLast();
+        e.key = gen.next();
+        subject.offer(e);
+        return e;
+    }
+}
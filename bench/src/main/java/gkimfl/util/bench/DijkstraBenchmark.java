@@ -0,0 +1,265 @@
+package gkimfl.util.bench;
+
+import gkimfl.util.Heap;
+import gkimfl.util.IndexedHeap;
+import gkimfl.util.LongKey;
+import gkimfl.util.MutableInt;
+import gkimfl.util.PairingHeap;
+import gkimfl.util.RadixHeap;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Single source shortest paths on a random sparse graph, with each queue. The
+ * queues with handles lower the key of a vertex in place; PriorityQueue and
+ * RadixHeap insert a vertex again and skip the stale entries, and Heap
+ * removes the vertex by its tracked position and offers it again.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DijkstraBenchmark {
+    @Param({ "10000", "1000000" })
+    int vertices;
+
+    @Param({ "8" })
+    int degree;
+
+    static final class Vertex {
+        final int id;
+        long dist;
+        int pos;
+        int handle;
+        PairingHeap.Node<Vertex> node;
+
+        Vertex(int id) {
+            this.id = id;
+        }
+    }
+
+    static final Comparator<Vertex> BY_DIST = new Comparator<Vertex>() {
+        @Override
+        public int compare(Vertex a, Vertex b) {
+            return a.dist < b.dist ? -1 : a.dist > b.dist ? +1 : 0;
+        }
+    };
+
+    static final MutableInt<Vertex> POS = new MutableInt<Vertex>() {
+        @Override
+        public int get(Vertex o) {
+            return o.pos;
+        }
+
+        @Override
+        public void set(Vertex o, int value) {
+            o.pos = value;
+        }
+    };
+
+    /**
+     * Entry of a queue that may hold stale entries for a vertex.
+     */
+    static final class Entry implements Comparable<Entry> {
+        final long dist;
+        final int id;
+
+        Entry(long dist, int id) {
+            this.dist = dist;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(Entry o) {
+            return dist < o.dist ? -1 : dist > o.dist ? +1 : 0;
+        }
+    }
+
+    static final LongKey<Entry> ENTRY_DIST = new LongKey<Entry>() {
+        @Override
+        public long get(Entry o) {
+            return o.dist;
+        }
+    };
+
+    int[] edgeStart;
+    int[] edgeTo;
+    long[] edgeWeight;
+    Vertex[] graph;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom rand = new SplittableRandom(42);
+        edgeStart = new int[vertices + 1];
+        edgeTo = new int[vertices * degree];
+        edgeWeight = new long[vertices * degree];
+        for (int v = 0; v < vertices; ++v) {
+            edgeStart[v + 1] = edgeStart[v] + degree;
+            for (int e = edgeStart[v]; e < edgeStart[v + 1]; ++e) {
+                edgeTo[e] = rand.nextInt(vertices);
+                edgeWeight[e] = 1 + rand.nextInt(1000);
+            }
+        }
+        graph = new Vertex[vertices];
+        for (int v = 0; v < vertices; ++v) {
+            graph[v] = new Vertex(v);
+        }
+    }
+
+    private void reset() {
+        for (Vertex v : graph) {
+            v.dist = Long.MAX_VALUE;
+            v.node = null;
+            v.pos = -1;
+            v.handle = -1;
+        }
+        graph[0].dist = 0;
+    }
+
+    @Benchmark
+    public long pairingHeap() {
+        reset();
+        PairingHeap<Vertex> q = new PairingHeap<Vertex>(BY_DIST);
+        graph[0].node = q.insert(graph[0]);
+        long sum = 0;
+        while (!q.isEmpty()) {
+            Vertex u = q.poll();
+            u.node = null;
+            sum += u.dist;
+            for (int e = edgeStart[u.id]; e < edgeStart[u.id + 1]; ++e) {
+                Vertex v = graph[edgeTo[e]];
+                long d = u.dist + edgeWeight[e];
+                if (d < v.dist) {
+                    v.dist = d;
+                    if (v.node == null) {
+                        v.node = q.insert(v);
+                    }
+                    else {
+                        q.decreaseKey(v.node, v);
+                    }
+                }
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long indexedHeap() {
+        reset();
+        IndexedHeap<Vertex> q = new IndexedHeap<Vertex>(BY_DIST);
+        graph[0].handle = q.insert(graph[0]);
+        long sum = 0;
+        while (!q.isEmpty()) {
+            Vertex u = q.poll();
+            u.handle = -1;
+            sum += u.dist;
+            for (int e = edgeStart[u.id]; e < edgeStart[u.id + 1]; ++e) {
+                Vertex v = graph[edgeTo[e]];
+                long d = u.dist + edgeWeight[e];
+                if (d < v.dist) {
+                    v.dist = d;
+                    if (v.handle < 0) {
+                        v.handle = q.insert(v);
+                    }
+                    else {
+                        q.decreaseKey(v.handle, v);
+                    }
+                }
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long heap() {
+        reset();
+        Heap<Vertex> q = new Heap<Vertex>(BY_DIST, POS);
+        q.offer(graph[0]);
+        long sum = 0;
+        while (!q.isEmpty()) {
+            Vertex u = q.poll();
+            u.pos = -1;
+            sum += u.dist;
+            for (int e = edgeStart[u.id]; e < edgeStart[u.id + 1]; ++e) {
+                Vertex v = graph[edgeTo[e]];
+                long d = u.dist + edgeWeight[e];
+                if (d < v.dist) {
+                    if (0 <= v.pos) {
+                        q.removeElem(v);
+                    }
+                    v.dist = d;
+                    q.offer(v);
+                }
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long priorityQueue() {
+        long[] dist = new long[vertices];
+        Arrays.fill(dist, Long.MAX_VALUE);
+        dist[0] = 0;
+        PriorityQueue<Entry> q = new PriorityQueue<Entry>();
+        q.offer(new Entry(0, 0));
+        long sum = 0;
+        while (!q.isEmpty()) {
+            Entry u = q.poll();
+            if (u.dist != dist[u.id]) {
+                continue;
+            }
+            sum += u.dist;
+            for (int e = edgeStart[u.id]; e < edgeStart[u.id + 1]; ++e) {
+                long d = u.dist + edgeWeight[e];
+                if (d < dist[edgeTo[e]]) {
+                    dist[edgeTo[e]] = d;
+                    q.offer(new Entry(d, edgeTo[e]));
+                }
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long radixHeap() {
+        long[] dist = new long[vertices];
+        Arrays.fill(dist, Long.MAX_VALUE);
+        dist[0] = 0;
+        RadixHeap<Entry> q = new RadixHeap<Entry>(ENTRY_DIST);
+        q.offer(new Entry(0, 0));
+        long sum = 0;
+        while (!q.isEmpty()) {
+            Entry u = q.poll();
+            if (u.dist != dist[u.id]) {
+                continue;
+            }
+            sum += u.dist;
+            for (int e = edgeStart[u.id]; e < edgeStart[u.id + 1]; ++e) {
+                long d = u.dist + edgeWeight[e];
+                if (d < dist[edgeTo[e]]) {
+                    dist[edgeTo[e]] = d;
+                    q.offer(new Entry(d, edgeTo[e]));
+                }
+            }
+        }
+        return sum;
+    }
+}
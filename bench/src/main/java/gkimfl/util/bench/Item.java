@@ -0,0 +1,51 @@
+package gkimfl.util.bench;
+
+import gkimfl.util.MutableInt;
+
+/**
+ * Benchmark element with a long key, and its positions in up to two heaps.
+ * Items with equal keys are ordered by id, so sorted maps can hold them.
+ */
+final class Item implements Comparable<Item> {
+    static final MutableInt<Item> FORE = new MutableInt<Item>() {
+        @Override
+        public int get(Item o) {
+            return o.forePos;
+        }
+
+        @Override
+        public void set(Item o, int value) {
+            o.forePos = value;
+        }
+    };
+
+    static final MutableInt<Item> BACK = new MutableInt<Item>() {
+        @Override
+        public int get(Item o) {
+            return o.backPos;
+        }
+
+        @Override
+        public void set(Item o, int value) {
+            o.backPos = value;
+        }
+    };
+
+    long key;
+    final int id;
+    int forePos;
+    int backPos;
+
+    Item(long key, int id) {
+        this.key = key;
+        this.id = id;
+    }
+
+    @Override
+    public int compareTo(Item o) {
+        if (key != o.key) {
+            return key < o.key ? -1 : +1;
+        }
+        return id < o.id ? -1 : id > o.id ? +1 : 0;
+    }
+}
@@ -0,0 +1,40 @@
+package gkimfl.util.bench;
+
+import java.util.SplittableRandom;
+
+/**
+ * Generator of keys in one of the distributions named by the benchmarks:
+ * random, sorted (ascending), reverse (descending), or duplicates (sixteen
+ * distinct values).
+ */
+final class Keys {
+    private final String distribution;
+    private final SplittableRandom rand;
+    private long count;
+
+    Keys(String distribution, long seed) {
+        if (!distribution.equals("random") && !distribution.equals("sorted")
+                && !distribution.equals("reverse") && !distribution.equals("duplicates")) {
+            throw new IllegalArgumentException("unknown distribution " + distribution);
+        }
+        this.distribution = distribution;
+        this.rand = new SplittableRandom(seed);
+    }
+
+    long next() {
+        switch (distribution) {
+        case "sorted":
+            return count++;
+        case "reverse":
+            return -count++;
+        case "duplicates":
+            return rand.nextInt(16);
+        default:
+            return rand.nextLong();
+        }
+    }
+
+    int nextIndex(int bound) {
+        return rand.nextInt(bound);
+    }
+}
@@ -0,0 +1,159 @@
+package gkimfl.util.bench;
+
+import gkimfl.util.Heap;
+import gkimfl.util.LongKey;
+import gkimfl.util.LoserTree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Merge of k sorted runs of a fixed total length, by loser tree and by a heap
+ * of cursors. Times are per merged element.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoserTreeBenchmark {
+    static final int TOTAL = 1 << 20;
+
+    @Param({ "8", "64", "512", "4096" })
+    int k;
+
+    static final Comparator<Long> NATURAL = new Comparator<Long>() {
+        @Override
+        public int compare(Long a, Long b) {
+            return a.compareTo(b);
+        }
+    };
+
+    static final LongKey<Long> IDENTITY = new LongKey<Long>() {
+        @Override
+        public long get(Long o) {
+            return o;
+        }
+    };
+
+    /**
+     * Run being merged, ordered by its head element.
+     */
+    static final class Cursor {
+        final Iterator<Long> it;
+        Long head;
+
+        Cursor(Iterator<Long> it) {
+            this.it = it;
+            head = it.next();
+        }
+    }
+
+    static final Comparator<Cursor> BY_HEAD = new Comparator<Cursor>() {
+        @Override
+        public int compare(Cursor a, Cursor b) {
+            return a.head.compareTo(b.head);
+        }
+    };
+
+    List<List<Long>> runs;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom rand = new SplittableRandom(42);
+        runs = new ArrayList<List<Long>>(k);
+        for (int r = 0; r < k; ++r) {
+            Long[] run = new Long[TOTAL / k];
+            for (int i = 0; i < run.length; ++i) {
+                run[i] = rand.nextLong();
+            }
+            Arrays.sort(run);
+            runs.add(Arrays.asList(run));
+        }
+    }
+
+    private List<Iterator<Long>> sources() {
+        List<Iterator<Long>> sources = new ArrayList<Iterator<Long>>(k);
+        for (List<Long> run : runs) {
+            sources.add(run.iterator());
+        }
+        return sources;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TOTAL)
+    public void loserTree(Blackhole bh) {
+        LoserTree<Long> merge = new LoserTree<Long>(sources(), NATURAL);
+        while (merge.hasNext()) {
+            bh.consume(merge.next());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TOTAL)
+    public void loserTreeLongKey(Blackhole bh) {
+        LoserTree<Long> merge = new LoserTree<Long>(sources(), IDENTITY);
+        while (merge.hasNext()) {
+            bh.consume(merge.next());
+        }
+    }
+
+    /**
+     * Heap of cursors. Heap has no operation to restore the order after the
+     * first element changes, so the cursor is polled and offered again.
+     */
+    @Benchmark
+    @OperationsPerInvocation(TOTAL)
+    public void heap(Blackhole bh) {
+        Heap<Cursor> heap = new Heap<Cursor>(k, BY_HEAD);
+        for (Iterator<Long> it : sources()) {
+            heap.offer(new Cursor(it));
+        }
+        while (!heap.isEmpty()) {
+            Cursor c = heap.poll();
+            bh.consume(c.head);
+            if (c.it.hasNext()) {
+                c.head = c.it.next();
+                heap.offer(c);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TOTAL)
+    public void priorityQueue(Blackhole bh) {
+        PriorityQueue<Cursor> heap = new PriorityQueue<Cursor>(k, BY_HEAD);
+        for (Iterator<Long> it : sources()) {
+            heap.offer(new Cursor(it));
+        }
+        while (!heap.isEmpty()) {
+            Cursor c = heap.poll();
+            bh.consume(c.head);
+            if (c.it.hasNext()) {
+                c.head = c.it.next();
+                heap.offer(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package gkimfl.util.bench;
+
+import gkimfl.util.AbstractDequeue;
+import gkimfl.util.IntervalHeap;
+import gkimfl.util.PagedIntervalHeap;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Page blocked layout against the plain interval heap, in the hold model
+ * with random keys, at sizes in and far out of cache.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PagedIntervalHeapBenchmark {
+    @Param({ "IntervalHeap", "PagedIntervalHeap" })
+    String queue;
+
+    @Param({ "1000", "1000000", "10000000" })
+    int size;
+
+    SplittableRandom rand;
+    AbstractDequeue<Long> heap;
+
+    @Setup
+    public void setUp() {
+        rand = new SplittableRandom(42);
+        if (queue.equals("IntervalHeap")) {
+            heap = new IntervalHeap<Long>(size);
+        }
+        else if (queue.equals("PagedIntervalHeap")) {
+            heap = new PagedIntervalHeap<Long>();
+        }
+        else {
+            throw new IllegalArgumentException("unknown queue " + queue);
+        }
+        for (int i = 0; i < size; ++i) {
+            heap.offer(rand.nextLong());
+        }
+    }
+
+    @Benchmark
+    public Long pollFirst() {
+        Long v = heap.pollFirst();
+        heap.offer(rand.nextLong());
+        return v;
+    }
+
+    @Benchmark
+    public Long pollLast() {
+        Long v = heap.pollLast();
+        heap.offer(rand.nextLong());
+        return v;
+    }
+}
@@ -0,0 +1,119 @@
+package gkimfl.util.bench;
+
+import gkimfl.util.DoubleHeap;
+import gkimfl.util.Heap;
+import gkimfl.util.IntHeap;
+import gkimfl.util.IntervalHeap;
+import gkimfl.util.LongHeap;
+import gkimfl.util.LongIntervalHeap;
+
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Primitive heaps against the generic heaps of boxed values, in the hold
+ * model with random values.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrimitiveHeapBenchmark {
+    @Param({ "1000", "1000000" })
+    int size;
+
+    SplittableRandom rand;
+    IntHeap intHeap;
+    LongHeap longHeap;
+    DoubleHeap doubleHeap;
+    LongIntervalHeap longIntervalHeap;
+    Heap<Long> heap;
+    IntervalHeap<Long> intervalHeap;
+    PriorityQueue<Long> priorityQueue;
+
+    @Setup
+    public void setUp() {
+        rand = new SplittableRandom(42);
+        intHeap = new IntHeap(size);
+        longHeap = new LongHeap(size);
+        doubleHeap = new DoubleHeap(size);
+        longIntervalHeap = new LongIntervalHeap(size);
+        heap = new Heap<Long>(size);
+        intervalHeap = new IntervalHeap<Long>(size);
+        priorityQueue = new PriorityQueue<Long>(size);
+        for (int i = 0; i < size; ++i) {
+            long v = rand.nextLong();
+            intHeap.offer((int) v);
+            longHeap.offer(v);
+            doubleHeap.offer(v);
+            longIntervalHeap.offer(v);
+            heap.offer(v);
+            intervalHeap.offer(v);
+            priorityQueue.offer(v);
+        }
+    }
+
+    @Benchmark
+    public int intHeap() {
+        int v = intHeap.poll();
+        intHeap.offer(rand.nextInt());
+        return v;
+    }
+
+    @Benchmark
+    public long longHeap() {
+        long v = longHeap.poll();
+        longHeap.offer(rand.nextLong());
+        return v;
+    }
+
+    @Benchmark
+    public double doubleHeap() {
+        double v = doubleHeap.poll();
+        doubleHeap.offer(rand.nextLong());
+        return v;
+    }
+
+    @Benchmark
+    public long longIntervalHeap() {
+        long v = longIntervalHeap.pollFirst();
+        longIntervalHeap.offer(rand.nextLong());
+        return v;
+    }
+
+    @Benchmark
+    public long boxedHeap() {
+        long v = heap.poll();
+        heap.offer(rand.nextLong());
+        return v;
+    }
+
+    @Benchmark
+    public long boxedIntervalHeap() {
+        long v = intervalHeap.pollFirst();
+        intervalHeap.offer(rand.nextLong());
+        return v;
+    }
+
+    @Benchmark
+    public long boxedPriorityQueue() {
+        long v = priorityQueue.poll();
+        priorityQueue.offer(rand.nextLong());
+        return v;
+    }
+}
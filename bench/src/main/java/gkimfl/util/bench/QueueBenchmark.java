@@ -0,0 +1,62 @@
+package gkimfl.util.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Steady state operations on a queue of a fixed size, in the hold model: each
+ * operation removes an item and offers it again with a new key, so the size
+ * of the queue does not change. Removing items other than the first is
+ * measured by {@link RemoveBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueueBenchmark {
+    @Param({ "Heap", "IntervalHeap", "DualQueue", "PriorityQueue", "TreeMap", "ArrayDeque" })
+    String queue;
+
+    @Param({ "10", "1000", "100000", "10000000" })
+    int size;
+
+    @Param({ "random", "sorted", "reverse", "duplicates" })
+    String keys;
+
+    Subject subject;
+    Keys gen;
+    int nextId;
+
+    @Setup
+    public void setUp() {
+        subject = Subject.create(queue, true);
+        gen = new Keys(keys, 42);
+        for (int i = 0; i < size; ++i) {
+            subject.offer(new Item(gen.next(), nextId++));
+        }
+    }
+
+    /**
+     * Remove the first item, and offer it again.
+     */
+    @Benchmark
+    public Item poll() {
+        Item e = subject.pollFirst();
+        e.key = gen.next();
+        subject.offer(e);
+        return e;
+    }
+}
@@ -0,0 +1,65 @@
+package gkimfl.util.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Removal of arbitrary items from a queue of a fixed size, in the hold model:
+ * each operation removes a random item and offers it again with a new key.
+ * Removal is O(N) for PriorityQueue and ArrayDeque, so the sizes stop short of
+ * those of {@link QueueBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RemoveBenchmark {
+    @Param({ "Heap", "IntervalHeap", "DualQueue", "PriorityQueue", "TreeMap", "ArrayDeque" })
+    String queue;
+
+    @Param({ "10", "1000", "100000" })
+    int size;
+
+    @Param({ "random", "sorted", "reverse", "duplicates" })
+    String keys;
+
+    Subject subject;
+    Keys gen;
+    Item[] live;
+
+    @Setup
+    public void setUp() {
+        subject = Subject.create(queue, true);
+        gen = new Keys(keys, 42);
+        live = new Item[size];
+        for (int i = 0; i < size; ++i) {
+            live[i] = new Item(gen.next(), i);
+            subject.offer(live[i]);
+        }
+    }
+
+    /**
+     * Remove a random item, and offer it again.
+     */
+    @Benchmark
+    public Item removeElem() {
+        Item e = live[gen.nextIndex(size)];
+        subject.remove(e);
+        e.key = gen.next();
+        subject.offer(e);
+        return e;
+    }
+}
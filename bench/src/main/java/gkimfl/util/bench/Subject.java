@@ -0,0 +1,314 @@
+package gkimfl.util.bench;
+
+import gkimfl.util.DualQueue;
+import gkimfl.util.Heap;
+import gkimfl.util.IntervalHeap;
+import gkimfl.util.NaturalComparator;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Common face of the queues compared by the benchmarks.
+ *
+ * ArrayDeque is not a priority queue; it is the cost of a queue that does no
+ * ordering at all. TreeMap holds each item as its own key. Heap and
+ * IntervalHeap track positions only if asked, since tracking is needed to
+ * remove arbitrary items, and disables parallel heapify.
+ */
+abstract class Subject {
+    static final String NAMES = "Heap, IntervalHeap, DualQueue, PriorityQueue, TreeMap, ArrayDeque";
+
+    abstract void offer(Item e);
+
+    abstract Item pollFirst();
+
+    Item pollLast() {
+        throw new UnsupportedOperationException();
+    }
+
+    abstract void remove(Item e);
+
+    /**
+     * Replace the contents with the items, in bulk if the queue can.
+     */
+    abstract void build(List<Item> items);
+
+    /**
+     * Add the items to the queue, by addAll.
+     */
+    abstract void addAll(List<Item> items);
+
+    abstract int size();
+
+    static Subject create(String name, boolean tracked) {
+        if (name.equals("Heap")) {
+            return new HeapSubject(tracked);
+        }
+        if (name.equals("IntervalHeap")) {
+            return new IntervalHeapSubject(tracked);
+        }
+        if (name.equals("DualQueue")) {
+            return new DualQueueSubject();
+        }
+        if (name.equals("PriorityQueue")) {
+            return new PriorityQueueSubject();
+        }
+        if (name.equals("TreeMap")) {
+            return new TreeMapSubject();
+        }
+        if (name.equals("ArrayDeque")) {
+            return new ArrayDequeSubject();
+        }
+        throw new IllegalArgumentException("unknown queue " + name + ", expected one of " + NAMES);
+    }
+
+    private static class HeapSubject extends Subject {
+        private final boolean tracked;
+        private Heap<Item> q;
+
+        HeapSubject(boolean tracked) {
+            this.tracked = tracked;
+            q = tracked ? new Heap<Item>(Item.FORE) : new Heap<Item>();
+        }
+
+        @Override
+        void offer(Item e) {
+            q.offer(e);
+        }
+
+        @Override
+        Item pollFirst() {
+            return q.poll();
+        }
+
+        @Override
+        void remove(Item e) {
+            q.removeElem(e);
+        }
+
+        @Override
+        void build(List<Item> items) {
+            q = tracked ? new Heap<Item>(items, Item.FORE) : new Heap<Item>(items);
+        }
+
+        @Override
+        void addAll(List<Item> items) {
+            q.addAll(items);
+        }
+
+        @Override
+        int size() {
+            return q.size();
+        }
+    }
+
+    private static class IntervalHeapSubject extends Subject {
+        private final boolean tracked;
+        private IntervalHeap<Item> q;
+
+        IntervalHeapSubject(boolean tracked) {
+            this.tracked = tracked;
+            q = tracked ? new IntervalHeap<Item>(Item.FORE) : new IntervalHeap<Item>();
+        }
+
+        @Override
+        void offer(Item e) {
+            q.offer(e);
+        }
+
+        @Override
+        Item pollFirst() {
+            return q.pollFirst();
+        }
+
+        @Override
+        Item pollLast() {
+            return q.pollLast();
+        }
+
+        @Override
+        void remove(Item e) {
+            q.removeElem(e);
+        }
+
+        @Override
+        void build(List<Item> items) {
+            q = tracked ? new IntervalHeap<Item>(items, new NaturalComparator<Item>(), Item.FORE)
+                    : new IntervalHeap<Item>(items);
+        }
+
+        @Override
+        void addAll(List<Item> items) {
+            q.addAll(items);
+        }
+
+        @Override
+        int size() {
+            return q.size();
+        }
+    }
+
+    private static class DualQueueSubject extends Subject {
+        private DualQueue<Item> q = create();
+
+        private static DualQueue<Item> create() {
+            return new DualQueue<Item>(new Heap<Item>(Item.FORE),
+                    new Heap<Item>(Collections.<Item> reverseOrder(), Item.BACK));
+        }
+
+        @Override
+        void offer(Item e) {
+            q.offer(e);
+        }
+
+        @Override
+        Item pollFirst() {
+            return q.pollFirst();
+        }
+
+        @Override
+        Item pollLast() {
+            return q.pollLast();
+        }
+
+        @Override
+        void remove(Item e) {
+            q.removeElem(e);
+        }
+
+        @Override
+        void build(List<Item> items) {
+            q = create();
+            q.addAll(items);
+        }
+
+        @Override
+        void addAll(List<Item> items) {
+            q.addAll(items);
+        }
+
+        @Override
+        int size() {
+            return q.size();
+        }
+    }
+
+    private static class PriorityQueueSubject extends Subject {
+        private PriorityQueue<Item> q = new PriorityQueue<Item>();
+
+        @Override
+        void offer(Item e) {
+            q.offer(e);
+        }
+
+        @Override
+        Item pollFirst() {
+            return q.poll();
+        }
+
+        @Override
+        void remove(Item e) {
+            q.remove(e);
+        }
+
+        @Override
+        void build(List<Item> items) {
+            q = new PriorityQueue<Item>(items);
+        }
+
+        @Override
+        void addAll(List<Item> items) {
+            q.addAll(items);
+        }
+
+        @Override
+        int size() {
+            return q.size();
+        }
+    }
+
+    private static class TreeMapSubject extends Subject {
+        private TreeMap<Item, Item> q = new TreeMap<Item, Item>();
+
+        @Override
+        void offer(Item e) {
+            q.put(e, e);
+        }
+
+        @Override
+        Item pollFirst() {
+            return q.pollFirstEntry().getKey();
+        }
+
+        @Override
+        Item pollLast() {
+            return q.pollLastEntry().getKey();
+        }
+
+        @Override
+        void remove(Item e) {
+            q.remove(e);
+        }
+
+        @Override
+        void build(List<Item> items) {
+            q = new TreeMap<Item, Item>();
+            addAll(items);
+        }
+
+        @Override
+        void addAll(List<Item> items) {
+            for (Item e : items) {
+                q.put(e, e);
+            }
+        }
+
+        @Override
+        int size() {
+            return q.size();
+        }
+    }
+
+    private static class ArrayDequeSubject extends Subject {
+        private ArrayDeque<Item> q = new ArrayDeque<Item>();
+
+        @Override
+        void offer(Item e) {
+            q.offerLast(e);
+        }
+
+        @Override
+        Item pollFirst() {
+            return q.pollFirst();
+        }
+
+        @Override
+        Item pollLast() {
+            return q.pollLast();
+        }
+
+        @Override
+        void remove(Item e) {
+            q.remove(e);
+        }
+
+        @Override
+        void build(List<Item> items) {
+            q = new ArrayDeque<Item>(items);
+        }
+
+        @Override
+        void addAll(List<Item> items) {
+            q.addAll(items);
+        }
+
+        @Override
+        int size() {
+            return q.size();
+        }
+    }
+}
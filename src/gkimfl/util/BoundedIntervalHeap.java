@@ -0,0 +1,151 @@
+package gkimfl.util;
+
+import java.util.Collection;
+import java.util.Comparator;
+
+/**
+ * Double ended priority queue of bounded size, for keeping the greatest or the
+ * least elements of a stream.
+ *
+ * Elements are held in an {@link IntervalHeap} of at most capacity elements.
+ * When the heap is full, an element that would be ordered beyond the end to be
+ * evicted is rejected after a single comparison. Otherwise the element at that
+ * end is evicted and replaced in the same O(log(N)) push down. If the first
+ * element is evicted, the heap keeps the greatest elements seen so far, and
+ * if the last element is evicted, the heap keeps the least elements.
+ *
+ * Every element that is evicted or rejected is reported to a {@link Listener},
+ * and counted.
+ *
+ * @author Allen Hubbe
+ *
+ * @param <E>
+ *            - the type of elements held in this collection
+ */
+public class BoundedIntervalHeap<E> extends IntervalHeap<E> {
+    /**
+     * Receiver of elements that are evicted or rejected from the heap.
+     */
+    public static class Listener<E> {
+        public void evicted(E e) {}
+    }
+
+    private final Comparator<E> cmp;
+    private final int capacity;
+    private final boolean evictFirst;
+    private final Listener<E> listener;
+    private long evictions;
+
+    public BoundedIntervalHeap(int capacity, boolean evictFirst) {
+        this(capacity, evictFirst, new NaturalComparator<E>(), new Listener<E>());
+    }
+
+    public BoundedIntervalHeap(int capacity, boolean evictFirst, Comparator<E> comparator) {
+        this(capacity, evictFirst, comparator, new Listener<E>());
+    }
+
+    /**
+     * Create a heap of at most capacity elements. If evictFirst is true, the
+     * minimum element is evicted when the heap is full, otherwise the maximum
+     * element is evicted.
+     */
+    public BoundedIntervalHeap(int capacity, boolean evictFirst, Comparator<E> comparator,
+            Listener<E> listener) {
+        super(capacity, comparator);
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.cmp = comparator;
+        this.capacity = capacity;
+        this.evictFirst = evictFirst;
+        this.listener = listener;
+    }
+
+    /**
+     * Return the maximum number of elements in the heap.
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Return the number of elements that have been evicted or rejected.
+     */
+    public long evictions() {
+        return evictions;
+    }
+
+    /**
+     * Insert several elements into the heap, one at a time.
+     */
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+        boolean changed = false;
+        for (E e : c) {
+            changed |= offer(e);
+        }
+        return changed;
+    }
+
+    /**
+     * Insert the elements of another heap into this heap, one at a time, so
+     * that the capacity is kept.
+     *
+     * @throws IllegalArgumentException
+     *             if other is this heap
+     */
+    @Override
+    public void merge(IntervalHeap<E> other) {
+        if (other == this) {
+            throw new IllegalArgumentException("cannot merge a heap into itself");
+        }
+        for (E e : other.queue) {
+            offer(e);
+        }
+    }
+
+    /**
+     * Move the elements of another heap into this heap, one at a time, so
+     * that the capacity is kept, and leave the other heap empty.
+     */
+    @Override
+    public void meld(IntervalHeap<E> other) {
+        if (other == this) {
+            return;
+        }
+        merge(other);
+        other.clear();
+    }
+
+    /**
+     * Insert an element into the heap. If the heap is full, either evict the
+     * element at one end, or return false if the element would be ordered
+     * beyond that end.
+     */
+    @Override
+    public boolean offer(E e) {
+        if (size() < capacity) {
+            return super.offer(e);
+        }
+        ++evictions;
+        if (evictFirst) {
+            if (!less(peekFirst(), e)) {
+                listener.evicted(e);
+                return false;
+            }
+            listener.evicted(replaceFirst(e));
+        }
+        else {
+            if (!less(e, peekLast())) {
+                listener.evicted(e);
+                return false;
+            }
+            listener.evicted(replaceLast(e));
+        }
+        return true;
+    }
+
+    private boolean less(E vA, E vB) {
+        return cmp.compare(vA, vB) < 0;
+    }
+}
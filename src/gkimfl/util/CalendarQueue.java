@@ -0,0 +1,285 @@
+package gkimfl.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Single ended priority queue implemented as a calendar queue.
+ *
+ * Elements are ordered by long keys given by a {@link LongKey}, typically the
+ * times of events. This is the calendar queue of Brown: an array of buckets,
+ * like the days of a year, where each bucket holds the keys of one window of
+ * width W, and the keys of every year that fall on that day. Removing the
+ * first element looks at the buckets in turn from the current day, and takes
+ * the least element of the first bucket that holds a key of its window in the
+ * current year. If the keys are spread evenly, each bucket holds a few
+ * elements, and insertion and removal take O(1) amortized time.
+ *
+ * The number of buckets doubles or halves as the queue grows or shrinks, and
+ * each time the width of a window is set to three times the average distance
+ * between the keys of a sample of the first elements. Each bucket is a small
+ * {@link Heap}, so if the keys are not spread evenly and many elements fall in
+ * one bucket, operations on that bucket take O(log(N)) time instead of O(N).
+ * If a whole year of buckets holds no key of the current year, the first
+ * element is found by looking at the least element of every bucket. If
+ * removals look at many more buckets than expected, the width is estimated
+ * again from the elements that are now first.
+ *
+ * Keys need not be inserted in order. Elements with equal keys are removed in
+ * no particular order.
+ *
+ * @author Allen Hubbe
+ *
+ * @param <E>
+ *            - the type of elements held in this collection
+ */
+public class CalendarQueue<E> extends AbstractQueue<E> {
+    private static final int MIN_BUCKETS = 16;
+    private static final int SAMPLE = 32;
+    private static final int SCAN_BUDGET = 8;
+
+    private final LongKey<E> key;
+    private final Comparator<E> cmp;
+    Heap<E>[] buckets;
+    int shift;
+    private int mask;
+    private long window;
+    private int size;
+    private long scanned;
+
+    public CalendarQueue(LongKey<E> key) {
+        this(key, MIN_BUCKETS, 1);
+    }
+
+    /**
+     * Create a queue with an initial number of buckets and width of each
+     * bucket, which are rounded up to powers of two.
+     */
+    public CalendarQueue(final LongKey<E> key, int bucketCount, long bucketWidth) {
+        this.key = key;
+        this.cmp = new Comparator<E>() {
+            @Override
+            public int compare(E a, E b) {
+                long kA = key.get(a);
+                long kB = key.get(b);
+                return kA < kB ? -1 : kA > kB ? +1 : 0;
+            }
+        };
+        shift = ceilLog2(Math.max(1, bucketWidth));
+        allocate(1 << ceilLog2(Math.max(MIN_BUCKETS, bucketCount)));
+    }
+
+    /**
+     * Remove all elements from the queue.
+     */
+    @Override
+    public void clear() {
+        allocate(MIN_BUCKETS);
+        size = 0;
+        scanned = 0;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean offer(E e) {
+        put(e);
+        if (buckets.length << 1 < size) {
+            resize(buckets.length << 1);
+        }
+        return true;
+    }
+
+    @Override
+    public E peek() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return first().peek();
+    }
+
+    @Override
+    public E poll() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        E e = first().poll();
+        --size;
+        if (size < buckets.length >> 1 && MIN_BUCKETS < buckets.length) {
+            resize(buckets.length >> 1);
+        }
+        else if (buckets.length << 1 < scanned) {
+            // the width no longer suits the first elements
+            resize(buckets.length);
+        }
+        return e;
+    }
+
+    /**
+     * Remove an element equal to e. This rebuilds the bucket of the key of the
+     * element, and takes time proportional to the size of that bucket.
+     */
+    @Override
+    public boolean removeElem(E e) {
+        Heap<E> bucket = buckets[bucket(key.get(e))];
+        if (bucket == null) {
+            return false;
+        }
+        ArrayList<E> rest = new ArrayList<E>(bucket.size());
+        boolean found = false;
+        for (E other : bucket) {
+            if (!found && other.equals(e)) {
+                found = true;
+            }
+            else {
+                rest.add(other);
+            }
+        }
+        if (found) {
+            bucket.clear();
+            bucket.addAll(rest);
+            --size;
+        }
+        return found;
+    }
+
+    /**
+     * Return an iterator for the elements. This iterator does not yield
+     * elements in sorted order.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            int b = 0;
+            Iterator<E> it = Collections.<E> emptyList().iterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!it.hasNext() && b < buckets.length) {
+                    Heap<E> bucket = buckets[b++];
+                    if (bucket != null) {
+                        it = bucket.iterator();
+                    }
+                }
+                return it.hasNext();
+            }
+
+            @Override
+            public E next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return it.next();
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private static int ceilLog2(long n) {
+        return 64 - Long.numberOfLeadingZeros(n - 1);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private void allocate(int count) {
+        buckets = new Heap[count];
+        mask = count - 1;
+    }
+
+    private int bucket(long k) {
+        return (int) (k >> shift) & mask;
+    }
+
+    /**
+     * Insert an element without resizing.
+     */
+    private void put(E e) {
+        long k = key.get(e);
+        if (size == 0 || k >> shift < window) {
+            window = k >> shift;
+        }
+        int b = bucket(k);
+        Heap<E> bucket = buckets[b];
+        if (bucket == null) {
+            bucket = buckets[b] = new Heap<E>(cmp);
+        }
+        bucket.offer(e);
+        ++size;
+    }
+
+    /**
+     * Return the bucket of the first element, advancing the current window to
+     * the window of that element. The queue must not be empty.
+     */
+    private Heap<E> first() {
+        for (int n = 0; n <= mask; ++n) {
+            Heap<E> bucket = buckets[(int) window & mask];
+            if (bucket != null && !bucket.isEmpty()
+                    && key.get(bucket.peek()) >> shift == window) {
+                scanned = Math.max(0, scanned + n - SCAN_BUDGET);
+                return bucket;
+            }
+            ++window;
+        }
+        scanned += buckets.length << 1;
+
+        // no key in the current year, so look at every bucket
+        Heap<E> best = null;
+        for (Heap<E> bucket : buckets) {
+            if (bucket != null && !bucket.isEmpty()
+                    && (best == null || cmp.compare(bucket.peek(), best.peek()) < 0)) {
+                best = bucket;
+            }
+        }
+        window = key.get(best.peek()) >> shift;
+        return best;
+    }
+
+    /**
+     * Change the number of buckets, and the width of each bucket from a sample
+     * of the first elements.
+     */
+    private void resize(int count) {
+        ArrayList<E> all = new ArrayList<E>(size);
+        int sample = Math.min(size, SAMPLE);
+        for (int i = 0; i < sample; ++i) {
+            all.add(first().poll());
+        }
+        if (2 <= sample) {
+            long first = key.get(all.get(0));
+            long last = key.get(all.get(sample - 1));
+            long gap = (last - first) / (sample - 1);
+            if (last - first < 0 || Long.MAX_VALUE / 3 < gap) {
+                shift = 62;
+            }
+            else {
+                shift = Math.min(62, ceilLog2(Math.max(1, 3 * gap)));
+            }
+        }
+        for (Heap<E> bucket : buckets) {
+            if (bucket != null) {
+                all.addAll(bucket.queue);
+            }
+        }
+        allocate(count);
+        size = 0;
+        scanned = 0;
+        for (E e : all) {
+            put(e);
+        }
+    }
+}
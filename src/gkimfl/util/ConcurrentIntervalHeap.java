@@ -0,0 +1,424 @@
+package gkimfl.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread safe double ended priority queue implemented as an interval heap with
+ * a lock for every node.
+ *
+ * The layout is the same as for {@link IntervalHeap}: a min heap in the even
+ * array indices, and a max heap in the odd array indices, so that node k is
+ * the interval of positions 2k and 2k+1. Each node has its own lock, and a
+ * separate lock protects only the size. An operation holds the size lock just
+ * long enough to reserve or release the last position and to lock the root,
+ * and then walks down the tree locking each child before unlocking its
+ * parent. Operations on different parts of the tree therefore proceed in
+ * parallel, following one another down from the root like a pipeline.
+ *
+ * Unlike the bottom up insertion of the concurrent heap of Hunt et al., offer
+ * also works top down. It carries the new element along the path from the
+ * root to the reserved leaf position, swapping it with the minimum or maximum
+ * of each interval that it falls outside of. Every operation acquires locks
+ * in the same order, parent before child, which makes the queue free of
+ * deadlock without tagging elements that are in transit. Removing the minimum
+ * or maximum takes the element at the last position, which may have to wait
+ * briefly for an insertion still on its way to that position, and pushes it
+ * down from the root, repairing each interval on the way.
+ *
+ * The capacity is fixed when the queue is created, and offer returns false
+ * when the queue is full. The queue does not permit null elements, and
+ * peekFirst, peekLast, pollFirst and pollLast return null when the queue is
+ * empty. The size includes insertions that are still in progress.
+ *
+ * @author Allen Hubbe
+ *
+ * @param <E>
+ *            - the type of elements held in this collection
+ */
+public class ConcurrentIntervalHeap<E> extends AbstractDequeue<E> {
+    private final Comparator<E> cmp;
+    private final Object[] queue;
+    private final ReentrantLock[] locks;
+    private final ReentrantLock sizeLock = new ReentrantLock();
+    private volatile int size;
+
+    public ConcurrentIntervalHeap(int capacity) {
+        this(capacity, new NaturalComparator<E>());
+    }
+
+    public ConcurrentIntervalHeap(int capacity, Comparator<E> comparator) {
+        int nodes = Math.max(1, (capacity + 1) >> 1);
+        cmp = comparator;
+        queue = new Object[capacity];
+        locks = new ReentrantLock[nodes];
+        for (int k = 0; k < nodes; ++k) {
+            locks[k] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Remove all elements from the heap.
+     */
+    @Override
+    public void clear() {
+        lockAll();
+        try {
+            for (int i = 0; i < size; ++i) {
+                queue[i] = null;
+            }
+            size = 0;
+        }
+        finally {
+            unlockAll();
+        }
+    }
+
+    /**
+     * Return true if the heap is empty.
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Return the number of elements in the heap.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Return an iterator over a snapshot of the elements. This iterator does
+     * not yield elements in sorted order. Taking the snapshot waits for every
+     * operation in progress, and blocks new ones.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        ArrayList<E> snapshot;
+        lockAll();
+        try {
+            snapshot = new ArrayList<E>(size);
+            for (int i = 0; i < size; ++i) {
+                snapshot.add(get(i));
+            }
+        }
+        finally {
+            unlockAll();
+        }
+        return snapshot.iterator();
+    }
+
+    /**
+     * Insert an element into the heap, or return false if the heap is full.
+     */
+    @Override
+    public boolean offer(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        int s;
+        sizeLock.lock();
+        try {
+            s = size;
+            if (s == queue.length) {
+                return false;
+            }
+            size = s + 1;
+            locks[0].lock();
+        }
+        finally {
+            sizeLock.unlock();
+        }
+
+        // walk down the path from the root to the node of position s
+        int path = (s >> 1) + 1;
+        int level = 31 - Integer.numberOfLeadingZeros(path);
+        int k = 0;
+        while (0 < level) {
+            E lo = get(k << 1);
+            E hi = get((k << 1) + 1);
+            if (less(e, lo)) {
+                queue[k << 1] = e;
+                e = lo;
+            }
+            else if (less(hi, e)) {
+                queue[(k << 1) + 1] = e;
+                e = hi;
+            }
+            --level;
+            int kDown = (k << 1) + 1 + ((path >> level) & 1);
+            locks[kDown].lock();
+            locks[k].unlock();
+            k = kDown;
+        }
+
+        if ((s & 1) == 0) {
+            queue[s] = e;
+        }
+        else {
+            E lo = get(s - 1);
+            if (less(e, lo)) {
+                queue[s - 1] = e;
+                queue[s] = lo;
+            }
+            else {
+                queue[s] = e;
+            }
+        }
+        locks[k].unlock();
+        return true;
+    }
+
+    /**
+     * Return the minimum element, or null if the heap is empty.
+     */
+    @Override
+    public E peekFirst() {
+        locks[0].lock();
+        try {
+            return size == 0 ? null : get(0);
+        }
+        finally {
+            locks[0].unlock();
+        }
+    }
+
+    /**
+     * Return the maximum element, or null if the heap is empty.
+     */
+    @Override
+    public E peekLast() {
+        locks[0].lock();
+        try {
+            E e = get(1);
+            return e != null ? e : get(0);
+        }
+        finally {
+            locks[0].unlock();
+        }
+    }
+
+    /**
+     * Return and remove the minimum element, or return null if the heap is
+     * empty.
+     */
+    @Override
+    public E pollFirst() {
+        int s = takeLast();
+        if (s < 0) {
+            return null;
+        }
+        E v = take(s);
+        if (s == 0) {
+            locks[0].unlock();
+            return v;
+        }
+        E e = get(0);
+
+        // push v down the min heap, starting with the hole at the root
+        int k = 0;
+        while (true) {
+            int iHi = (k << 1) + 1;
+            E hi = get(iHi);
+            if (hi != null && less(hi, v)) {
+                queue[iHi] = v;
+                v = hi;
+            }
+            int kDown = lockChild(k, true);
+            if (kDown < 0) {
+                break;
+            }
+            E vDown = get(kDown << 1);
+            if (!less(vDown, v)) {
+                locks[kDown].unlock();
+                break;
+            }
+            queue[k << 1] = vDown;
+            locks[k].unlock();
+            k = kDown;
+        }
+        queue[k << 1] = v;
+        locks[k].unlock();
+        return e;
+    }
+
+    /**
+     * Return and remove the maximum element, or return null if the heap is
+     * empty.
+     */
+    @Override
+    public E pollLast() {
+        int s = takeLast();
+        if (s < 0) {
+            return null;
+        }
+        E v = take(s);
+        if (s < 2) {
+            locks[0].unlock();
+            return v;
+        }
+        E e = get(1);
+
+        // push v down the max heap, starting with the hole at the root
+        int k = 0;
+        int i = 1;
+        while (true) {
+            if ((i & 1) == 1) {
+                E lo = get(i - 1);
+                if (less(v, lo)) {
+                    queue[i - 1] = v;
+                    v = lo;
+                }
+            }
+            int kDown = lockChild(k, false);
+            if (kDown < 0) {
+                break;
+            }
+            int iDown = (kDown << 1) + 1;
+            E vDown = get(iDown);
+            if (vDown == null) {
+                vDown = get(--iDown);
+            }
+            if (!less(v, vDown)) {
+                locks[kDown].unlock();
+                break;
+            }
+            queue[i] = vDown;
+            locks[k].unlock();
+            k = kDown;
+            i = iDown;
+        }
+        queue[i] = v;
+        locks[k].unlock();
+        return e;
+    }
+
+    /**
+     * Removing arbitrary elements is not supported.
+     */
+    @Override
+    public boolean removeElem(E e) {
+        throw new UnsupportedOperationException();
+    }
+
+    @SuppressWarnings("unchecked")
+    private E get(int i) {
+        return (E) queue[i];
+    }
+
+    /**
+     * Return true if vA should should be ordered prior to vB.
+     */
+    private boolean less(E vA, E vB) {
+        return cmp.compare(vA, vB) < 0;
+    }
+
+    /**
+     * Release the last position and lock the root. Return the position, or -1
+     * if the heap is empty.
+     */
+    private int takeLast() {
+        sizeLock.lock();
+        try {
+            int s = size - 1;
+            if (s < 0) {
+                return -1;
+            }
+            size = s;
+            locks[0].lock();
+            return s;
+        }
+        finally {
+            sizeLock.unlock();
+        }
+    }
+
+    /**
+     * Remove and return the element at the released last position s, while
+     * holding the root lock. If an insertion has reserved position s but not
+     * yet reached it, wait for the insertion to finish. Insertions that
+     * reserved s are ahead of this thread in the tree, and never need the root
+     * lock again.
+     */
+    private E take(int s) {
+        int k = s >> 1;
+        locks[k].lock();
+        while (queue[s] == null) {
+            locks[k].unlock();
+            Thread.yield();
+            locks[k].lock();
+        }
+        E v = get(s);
+        queue[s] = null;
+        locks[k].unlock();
+        return v;
+    }
+
+    /**
+     * Lock the child of node k with the least minimum, or the greatest
+     * maximum, and return it. Return -1 if node k has no children.
+     */
+    private int lockChild(int k, boolean min) {
+        int kLeft = (k << 1) + 1;
+        int kRight = kLeft + 1;
+        if (locks.length <= kLeft) {
+            return -1;
+        }
+        locks[kLeft].lock();
+        if (queue[kLeft << 1] == null) {
+            locks[kLeft].unlock();
+            return -1;
+        }
+        if (locks.length <= kRight) {
+            return kLeft;
+        }
+        locks[kRight].lock();
+        if (queue[kRight << 1] == null) {
+            locks[kRight].unlock();
+            return kLeft;
+        }
+        boolean right;
+        if (min) {
+            right = less(get(kRight << 1), get(kLeft << 1));
+        }
+        else {
+            right = less(max(kLeft), max(kRight));
+        }
+        if (right) {
+            locks[kLeft].unlock();
+            return kRight;
+        }
+        else {
+            locks[kRight].unlock();
+            return kLeft;
+        }
+    }
+
+    /**
+     * Return the maximum of node k, which is its only element if the node
+     * holds an empty interval.
+     */
+    private E max(int k) {
+        E e = get((k << 1) + 1);
+        return e != null ? e : get(k << 1);
+    }
+
+    private void lockAll() {
+        sizeLock.lock();
+        for (int k = 0; k < locks.length; ++k) {
+            locks[k].lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (int k = locks.length - 1; 0 <= k; --k) {
+            locks[k].unlock();
+        }
+        sizeLock.unlock();
+    }
+}
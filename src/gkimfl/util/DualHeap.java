@@ -0,0 +1,251 @@
+package gkimfl.util;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+
+/**
+ * Double ended priority queue based on a pair of heaps that share one node per
+ * element.
+ *
+ * This is the same design as a {@link DualQueue} of two {@link Heap}s, but
+ * each element is wrapped in a node that records its position in both heaps.
+ * Removing the first element of one heap finds the same element in the other
+ * heap through its node, and removes it in O(log(N)) time without hashing or
+ * searching. The two heaps are ordered independently, so this queue can serve
+ * a pair of comparators that are not the reverse of each other, which an
+ * {@link IntervalHeap} can not.
+ *
+ * Inserting an element returns its node, which may be used to remove the
+ * element, or to restore the order of both heaps after the element changes.
+ *
+ * @author Allen Hubbe
+ *
+ * @param <E>
+ *            - the type of elements held in this collection
+ */
+public class DualHeap<E> extends AbstractDequeue<E> {
+    /**
+     * Node of an element in both heaps.
+     */
+    public static final class Node<E> {
+        final E elem;
+        int forePos = -1;
+        int backPos = -1;
+
+        Node(E e) {
+            elem = e;
+        }
+
+        /**
+         * Return the element of this node.
+         */
+        public E get() {
+            return elem;
+        }
+    }
+
+    private static class NodeComparator<E> implements Comparator<Node<E>> {
+        private final Comparator<E> cmp;
+
+        NodeComparator(Comparator<E> comparator) {
+            cmp = comparator;
+        }
+
+        @Override
+        public int compare(Node<E> a, Node<E> b) {
+            return cmp.compare(a.elem, b.elem);
+        }
+    }
+
+    private static class ForePos<E> extends MutableInt<Node<E>> {
+        @Override
+        public int get(Node<E> o) {
+            return o.forePos;
+        }
+
+        @Override
+        public void set(Node<E> o, int value) {
+            o.forePos = value;
+        }
+    }
+
+    private static class BackPos<E> extends MutableInt<Node<E>> {
+        @Override
+        public int get(Node<E> o) {
+            return o.backPos;
+        }
+
+        @Override
+        public void set(Node<E> o, int value) {
+            o.backPos = value;
+        }
+    }
+
+    final Heap<Node<E>> fore;
+    final Heap<Node<E>> back;
+
+    public DualHeap() {
+        this(new NaturalComparator<E>());
+    }
+
+    /**
+     * Create a queue where the last element is the greatest by comparator.
+     */
+    public DualHeap(Comparator<E> comparator) {
+        this(comparator, Collections.reverseOrder(comparator));
+    }
+
+    /**
+     * Create a queue where the first element is the least by foreward, and the
+     * last element is the least by backward.
+     */
+    public DualHeap(Comparator<E> foreward, Comparator<E> backward) {
+        fore = new Heap<Node<E>>(new NodeComparator<E>(foreward), new ForePos<E>());
+        back = new Heap<Node<E>>(new NodeComparator<E>(backward), new BackPos<E>());
+    }
+
+    /**
+     * Insert an element into the queue, and return its node.
+     */
+    public Node<E> insert(E e) {
+        Node<E> node = new Node<E>(e);
+        fore.offer(node);
+        back.offer(node);
+        return node;
+    }
+
+    @Override
+    public boolean offer(E e) {
+        insert(e);
+        return true;
+    }
+
+    /**
+     * Return true if the node is in this queue.
+     */
+    public boolean containsNode(Node<E> node) {
+        int i = node.forePos;
+        return 0 <= i && i < fore.queue.size() && fore.queue.get(i) == node;
+    }
+
+    /**
+     * Remove the element of a node. Return false if the node is not in this
+     * queue, because it was already removed, or belongs to another queue.
+     */
+    public boolean removeNode(Node<E> node) {
+        if (!containsNode(node)) {
+            return false;
+        }
+        fore.removeElem(node);
+        back.removeElem(node);
+        node.forePos = -1;
+        node.backPos = -1;
+        return true;
+    }
+
+    /**
+     * Restore the order of both heaps after the element of a node has changed.
+     *
+     * @throws IllegalArgumentException
+     *             if the node is not in this queue
+     */
+    public void update(Node<E> node) {
+        if (!containsNode(node)) {
+            throw new IllegalArgumentException("node is not in this queue");
+        }
+        fore.removeElem(node);
+        fore.offer(node);
+        back.removeElem(node);
+        back.offer(node);
+    }
+
+    @Override
+    public E peekFirst() {
+        return fore.peek().elem;
+    }
+
+    @Override
+    public E peekLast() {
+        return back.peek().elem;
+    }
+
+    @Override
+    public E pollFirst() {
+        Node<E> node = fore.poll();
+        back.removeElem(node);
+        node.forePos = -1;
+        node.backPos = -1;
+        return node.elem;
+    }
+
+    @Override
+    public E pollLast() {
+        Node<E> node = back.poll();
+        fore.removeElem(node);
+        node.forePos = -1;
+        node.backPos = -1;
+        return node.elem;
+    }
+
+    /**
+     * Remove an element equal to e. This scans the queue for the element, and
+     * takes O(N) time. Use {@link #removeNode(Node)} to remove an element by
+     * its node in log(N) time.
+     */
+    @Override
+    public boolean removeElem(E e) {
+        for (Node<E> node : fore.queue) {
+            if (e == null ? node.elem == null : e.equals(node.elem)) {
+                removeNode(node);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Return an iterator for the elements. This iterator does not yield
+     * elements in sorted order.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        final Iterator<Node<E>> it = fore.iterator();
+        return new Iterator<E>() {
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public E next() {
+                return it.next().elem;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return fore.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return fore.size();
+    }
+
+    @Override
+    public void clear() {
+        for (Node<E> node : fore.queue) {
+            node.forePos = -1;
+            node.backPos = -1;
+        }
+        fore.clear();
+        back.clear();
+    }
+}
@@ -10,6 +10,11 @@ import java.util.Iterator;
  * DualQueue provides a double ended priority queue implementation. The
  * component queues may even be ordered independently for other applications.
  * 
+ * Removing the first element of one component queue also removes it from the
+ * other, so the other queue must support removeElem efficiently. For a pair of
+ * heaps, {@link DualHeap} shares one node per element between the heaps, and
+ * needs no position tracking by the caller.
+ * 
  * @author Allen Hubbe
  * 
  * @param <E>
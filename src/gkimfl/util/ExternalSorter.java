@@ -0,0 +1,525 @@
+package gkimfl.util;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * External memory sort of fixed width records, with runs cut by double ended
+ * replacement selection in an {@link IntervalHeap}.
+ *
+ * Elements are added one at a time, and at most a given number of them are
+ * held in memory. The heap holds the elements of the current run. Each run is
+ * written from both ends inward: the least element of the heap is appended to
+ * a bottom file, which ascends, and the greatest element of the heap to a top
+ * file, which descends. An added element that still falls between the last
+ * elements written to the two files joins the current run, and otherwise waits
+ * in memory for the next run. The end of the heap that is written is the one
+ * farther from the added element, so ascending and descending input each make
+ * a single run. Random input makes runs of about twice the memory size, as for
+ * classic replacement selection.
+ *
+ * Runs are encoded by a {@link RecordCodec}, and written to temporary files
+ * through a {@link FileChannel}. The bottom and top files each have their own
+ * block buffer, reused for every run, so a file is written in large blocks
+ * even when replacement selection writes to both files in turn. Sorting reads
+ * the bottom file of each run forward and then its top file backward, and
+ * merges the runs with a {@link LoserTree}. If no run was written, the
+ * elements are sorted in memory. Closing the sorter, or the stream returned by
+ * {@link #stream()}, deletes its files.
+ *
+ * The files of a run are closed when the run is written, and opened again
+ * to merge it. At most {@link #MAX_FAN_IN} runs are merged at once: if there
+ * are more, groups of the earliest runs are first merged into new runs, and
+ * their files deleted. So at most two files per merged run are open at once,
+ * and the disk holds at most about twice the input, even for inputs much
+ * larger than memory.
+ *
+ * Errors while reading runs during the merge are thrown as
+ * {@link UncheckedIOException}.
+ *
+ * @author Allen Hubbe
+ *
+ * @param <E>
+ *            - the type of elements sorted
+ */
+public class ExternalSorter<E> implements Closeable {
+    private static final int WRITE_BYTES = 1 << 20;
+    private static final int READ_BYTES = 1 << 16;
+
+    /**
+     * Maximum number of runs merged in one pass.
+     */
+    public static final int MAX_FAN_IN = 64;
+
+    /**
+     * Order of elements by their records, which encodes both elements.
+     */
+    private static class CodecComparator<E> implements Comparator<E> {
+        private final RecordCodec<E> codec;
+        private final ByteBuffer a;
+        private final ByteBuffer b;
+
+        CodecComparator(RecordCodec<E> codec) {
+            this.codec = codec;
+            a = ByteBuffer.allocate(codec.width()).order(ByteOrder.nativeOrder());
+            b = ByteBuffer.allocate(codec.width()).order(ByteOrder.nativeOrder());
+        }
+
+        @Override
+        public int compare(E o1, E o2) {
+            codec.encode(o1, a, 0);
+            codec.encode(o2, b, 0);
+            return codec.compare(a, 0, b, 0);
+        }
+    }
+
+    private final RecordCodec<E> codec;
+    private final Comparator<E> cmp;
+    private final int width;
+    private final int memory;
+    private final File dir;
+    private final IntervalHeap<E> heap;
+    private final ArrayList<E> pending = new ArrayList<E>();
+    private final List<File> files = new ArrayList<File>();
+    private final List<RandomAccessFile> open = new ArrayList<RandomAccessFile>();
+    private final ByteBuffer bottomBlock;
+    private final ByteBuffer topBlock;
+    private RandomAccessFile bottom;
+    private RandomAccessFile top;
+    private E bottomLast;
+    private E topLast;
+    private boolean bottomEmpty = true;
+    private boolean topEmpty = true;
+    private boolean alternate;
+    private boolean sorted;
+    private int runs;
+    private long blocksWritten;
+    private long bytesWritten;
+
+    /**
+     * Create a sorter that holds up to memoryRecords elements in memory, and
+     * writes runs to the default temporary directory.
+     */
+    public ExternalSorter(RecordCodec<E> codec, int memoryRecords) {
+        this(codec, new CodecComparator<E>(codec), memoryRecords, null);
+    }
+
+    /**
+     * Create a sorter that holds up to memoryRecords elements in memory, and
+     * writes runs to dir. The comparator must order elements the same as the
+     * codec orders their records.
+     */
+    public ExternalSorter(RecordCodec<E> codec, Comparator<E> comparator, int memoryRecords, File dir) {
+        if (memoryRecords < 1) {
+            throw new IllegalArgumentException("memory must hold at least one record");
+        }
+        this.codec = codec;
+        this.cmp = comparator;
+        this.width = codec.width();
+        this.memory = memoryRecords;
+        this.dir = dir;
+        this.heap = new IntervalHeap<E>(comparator);
+        int blockBytes = Math.max(width, WRITE_BYTES / width * width);
+        this.bottomBlock = ByteBuffer.allocate(blockBytes).order(ByteOrder.nativeOrder());
+        this.topBlock = ByteBuffer.allocate(blockBytes).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Add an element to be sorted. If memory is full, this writes one element
+     * of the current run.
+     *
+     * @throws IllegalStateException
+     *             if the elements have already been sorted
+     */
+    public void add(E e) throws IOException {
+        if (sorted) {
+            throw new IllegalStateException("already sorted");
+        }
+        if (heap.size() + pending.size() == memory) {
+            if (heap.isEmpty()) {
+                nextRun();
+            }
+            if (cmp.compare(e, heap.peekFirst()) <= 0) {
+                writeTop(heap.pollLast());
+            }
+            else if (0 <= cmp.compare(e, heap.peekLast())) {
+                writeBottom(heap.pollFirst());
+            }
+            else {
+                alternate = !alternate;
+                if (alternate) {
+                    writeTop(heap.pollLast());
+                }
+                else {
+                    writeBottom(heap.pollFirst());
+                }
+            }
+        }
+        if ((bottomEmpty || 0 <= cmp.compare(e, bottomLast))
+                && (topEmpty || cmp.compare(e, topLast) <= 0)) {
+            heap.offer(e);
+        }
+        else {
+            pending.add(e);
+        }
+    }
+
+    /**
+     * Add each element of an iterator to be sorted.
+     */
+    public void addAll(Iterator<? extends E> it) throws IOException {
+        while (it.hasNext()) {
+            add(it.next());
+        }
+    }
+
+    /**
+     * Return the number of runs written so far, including runs written by
+     * intermediate merges.
+     */
+    public int runs() {
+        return runs;
+    }
+
+    /**
+     * Return the number of blocks written to run files so far.
+     */
+    public long blocksWritten() {
+        return blocksWritten;
+    }
+
+    /**
+     * Return the number of bytes written to run files so far. Divided by
+     * {@link #blocksWritten()}, this is the mean size of a write.
+     */
+    public long bytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Finish adding elements, and return an iterator of all the elements in
+     * sorted order. This may only be called once.
+     */
+    public Iterator<E> sort() throws IOException {
+        if (sorted) {
+            throw new IllegalStateException("already sorted");
+        }
+        sorted = true;
+        if (runs == 0 && pending.isEmpty()) {
+            return new Iterator<E>() {
+                @Override
+                public boolean hasNext() {
+                    return !heap.isEmpty();
+                }
+
+                @Override
+                public E next() {
+                    if (heap.isEmpty()) {
+                        throw new NoSuchElementException();
+                    }
+                    return heap.pollFirst();
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+        while (!heap.isEmpty()) {
+            writeBottom(heap.pollFirst());
+        }
+        if (!pending.isEmpty()) {
+            nextRun();
+            while (!heap.isEmpty()) {
+                writeBottom(heap.pollFirst());
+            }
+        }
+        endRun();
+        int first = 0;
+        while (MAX_FAN_IN < runs - first) {
+            Iterator<E> merged = merge(first, first + MAX_FAN_IN);
+            startRun();
+            try {
+                while (merged.hasNext()) {
+                    writeBottom(merged.next());
+                }
+            }
+            catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            endRun();
+            delete(first, first + MAX_FAN_IN);
+            first += MAX_FAN_IN;
+        }
+        return merge(first, runs);
+    }
+
+    /**
+     * Finish adding elements, and return a sequential stream of all the
+     * elements in sorted order. This may only be called once. Closing the
+     * stream closes the sorter, and errors while closing are thrown as
+     * {@link UncheckedIOException}.
+     */
+    public Stream<E> stream() throws IOException {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(sort(), Spliterator.ORDERED), false)
+                .onClose(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            close();
+                        }
+                        catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Close and delete the files of all runs.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            delete(0, files.size() / 2);
+        }
+        finally {
+            open.clear();
+            files.clear();
+        }
+    }
+
+    /**
+     * Return an iterator that merges runs from first up to end.
+     */
+    private Iterator<E> merge(int first, int end) throws IOException {
+        List<Iterator<E>> readers = new ArrayList<Iterator<E>>(end - first);
+        for (int r = first; r < end; ++r) {
+            RandomAccessFile bottom = reopen(2 * r);
+            RandomAccessFile top = reopen(2 * r + 1);
+            readers.add(new RunReader(bottom.getChannel(), top.getChannel()));
+        }
+        return new LoserTree<E>(readers, cmp);
+    }
+
+    private RandomAccessFile reopen(int i) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(files.get(i), "r");
+        open.set(i, raf);
+        return raf;
+    }
+
+    /**
+     * Close and delete the files of runs from first up to end, which may
+     * already be closed or deleted.
+     */
+    private void delete(int first, int end) throws IOException {
+        IOException error = null;
+        for (int i = 2 * first; i < 2 * end; ++i) {
+            RandomAccessFile f = open.get(i);
+            if (f != null) {
+                try {
+                    f.close();
+                }
+                catch (IOException e) {
+                    error = error == null ? e : error;
+                }
+                open.set(i, null);
+            }
+            files.get(i).delete();
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * End the current run, if any, and start the next run with the elements
+     * that were waiting for it.
+     */
+    private void nextRun() throws IOException {
+        if (0 < runs) {
+            endRun();
+        }
+        startRun();
+        heap.addAll(pending);
+        pending.clear();
+    }
+
+    private void startRun() throws IOException {
+        bottom = create();
+        top = create();
+        bottomEmpty = true;
+        topEmpty = true;
+        bottomLast = null;
+        topLast = null;
+        ++runs;
+    }
+
+    private void endRun() throws IOException {
+        flush(bottom, bottomBlock);
+        flush(top, topBlock);
+        int i = 2 * (runs - 1);
+        open.set(i, null);
+        open.set(i + 1, null);
+        try {
+            bottom.close();
+        }
+        finally {
+            top.close();
+        }
+    }
+
+    private RandomAccessFile create() throws IOException {
+        File f = File.createTempFile("run", ".tmp", dir);
+        files.add(f);
+        RandomAccessFile raf = new RandomAccessFile(f, "rw");
+        open.add(raf);
+        return raf;
+    }
+
+    private void writeBottom(E e) throws IOException {
+        if (runs == 0) {
+            startRun();
+        }
+        write(bottom, bottomBlock, e);
+        bottomLast = e;
+        bottomEmpty = false;
+    }
+
+    private void writeTop(E e) throws IOException {
+        if (runs == 0) {
+            startRun();
+        }
+        write(top, topBlock, e);
+        topLast = e;
+        topEmpty = false;
+    }
+
+    /**
+     * Append a record to the block of a file, and write the block to the file
+     * when it is full.
+     */
+    private void write(RandomAccessFile f, ByteBuffer block, E e) throws IOException {
+        if (!block.hasRemaining()) {
+            flush(f, block);
+        }
+        codec.encode(e, block, block.position());
+        block.position(block.position() + width);
+    }
+
+    private void flush(RandomAccessFile f, ByteBuffer block) throws IOException {
+        if (block.position() == 0) {
+            return;
+        }
+        block.flip();
+        bytesWritten += block.remaining();
+        ++blocksWritten;
+        FileChannel ch = f.getChannel();
+        while (block.hasRemaining()) {
+            ch.write(block);
+        }
+        block.clear();
+    }
+
+    /**
+     * Iterator of the records of a run: the bottom file forward, then the top
+     * file backward.
+     */
+    private class RunReader implements Iterator<E> {
+        private final FileChannel bottom;
+        private final FileChannel top;
+        private final ByteBuffer buf;
+        private long bottomPos;
+        private long topPos;
+        private int offset;
+        private int end;
+        private boolean backward;
+
+        RunReader(FileChannel bottom, FileChannel top) throws IOException {
+            this.bottom = bottom;
+            this.top = top;
+            buf = ByteBuffer.allocate(Math.max(width, READ_BYTES / width * width))
+                    .order(ByteOrder.nativeOrder());
+            topPos = top.size();
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (backward ? 0 < offset : offset < end) {
+                return true;
+            }
+            try {
+                return fill();
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public E next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (backward) {
+                offset -= width;
+                return codec.decode(buf, offset);
+            }
+            E e = codec.decode(buf, offset);
+            offset += width;
+            return e;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        private boolean fill() throws IOException {
+            if (!backward) {
+                if (bottomPos < bottom.size()) {
+                    end = read(bottom, bottomPos, (int) Math.min(buf.capacity(), bottom.size() - bottomPos));
+                    bottomPos += end;
+                    offset = 0;
+                    return true;
+                }
+                backward = true;
+            }
+            if (0 < topPos) {
+                int n = (int) Math.min(buf.capacity(), topPos);
+                topPos -= n;
+                offset = read(top, topPos, n);
+                return true;
+            }
+            return false;
+        }
+
+        private int read(FileChannel ch, long position, int n) throws IOException {
+            buf.clear();
+            buf.limit(n);
+            while (buf.hasRemaining()) {
+                if (ch.read(buf, position + buf.position()) < 0) {
+                    throw new IOException("run file truncated");
+                }
+            }
+            buf.clear();
+            return n;
+        }
+    }
+}
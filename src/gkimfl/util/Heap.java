@@ -2,9 +2,12 @@ package gkimfl.util;
 
 import static java.lang.Math.log;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.stream.Stream;
 
 /**
  * Single ended priority queue implemented as a heap.
@@ -15,6 +18,23 @@ import java.util.Iterator;
  * Arbitrary elements may be removed if the position in the queue is tracked for
  * each element. The first element can always be removed.
  * 
+ * By default the heap is a binary tree. It may instead be created as a d-ary
+ * tree, where d is a power of two. A wider tree is shallower, so removing the
+ * first element visits fewer levels, at the cost of comparing more children on
+ * each level. Since the children of a node are adjacent in the array, a 4-ary
+ * or 8-ary heap touches fewer cache lines than a binary heap when the queue is
+ * much larger than the cache. Inserting an element is also faster in a wider
+ * heap, since it only compares with the parent on each level.
+ * 
+ * Heapifying a large collection, from a constructor or from addAll, builds
+ * independent subtrees in parallel on the common ForkJoinPool, unless the
+ * positions of elements are tracked.
+ * 
+ * The elements may be iterated in order without removing them, by
+ * {@link #sortedIterator()}, or streamed in order from a sorted copy, by
+ * {@link #sortedStream()}. The spliterator splits the backing array by range,
+ * for parallel streams that do not need order.
+ * 
  * @author Allen Hubbe
  * 
  * @param <E>
@@ -23,82 +43,85 @@ import java.util.Iterator;
 public class Heap<E> extends AbstractQueue<E> {
     final Comparator<E> cmp;
     final MutableInt<E> pos;
+    final int shift;
     ArrayList<E> queue;
 
     public Heap() {
-        cmp = new NaturalComparator<E>();
-        pos = new MutableInt<E>();
-        queue = new ArrayList<E>();
+        this(10, new NaturalComparator<E>(), new MutableInt<E>(), 2);
     }
 
     public Heap(Comparator<E> comparator) {
-        cmp = comparator;
-        pos = new MutableInt<E>();
-        queue = new ArrayList<E>();
+        this(10, comparator, new MutableInt<E>(), 2);
     }
 
     public Heap(Comparator<E> comparator, MutableInt<E> position) {
-        cmp = comparator;
-        pos = position;
-        queue = new ArrayList<E>();
+        this(10, comparator, position, 2);
     }
 
     public Heap(MutableInt<E> position) {
-        cmp = new NaturalComparator<E>();
-        pos = position;
-        queue = new ArrayList<E>();
+        this(10, new NaturalComparator<E>(), position, 2);
     }
 
     public Heap(Collection<E> collection) {
-        cmp = new NaturalComparator<E>();
-        pos = new MutableInt<E>();
-        queue = new ArrayList<E>(collection);
-        heapify();
+        this(collection, new NaturalComparator<E>(), new MutableInt<E>(), 2);
     }
 
     public Heap(Collection<E> collection, Comparator<E> comparator) {
-        cmp = comparator;
-        pos = new MutableInt<E>();
-        queue = new ArrayList<E>(collection);
-        heapify();
+        this(collection, comparator, new MutableInt<E>(), 2);
     }
 
     public Heap(Collection<E> collection, Comparator<E> comparator, MutableInt<E> position) {
-        cmp = comparator;
-        pos = position;
-        queue = new ArrayList<E>(collection);
-        heapify();
+        this(collection, comparator, position, 2);
     }
 
     public Heap(Collection<E> collection, MutableInt<E> position) {
-        cmp = new NaturalComparator<E>();
-        pos = position;
-        queue = new ArrayList<E>(collection);
-        heapify();
+        this(collection, new NaturalComparator<E>(), position, 2);
     }
 
     public Heap(int initialCapacity) {
-        cmp = new NaturalComparator<E>();
-        pos = new MutableInt<E>();
-        queue = new ArrayList<E>(initialCapacity);
+        this(initialCapacity, new NaturalComparator<E>(), new MutableInt<E>(), 2);
     }
 
     public Heap(int initialCapacity, Comparator<E> comparator) {
-        cmp = comparator;
-        pos = new MutableInt<E>();
-        queue = new ArrayList<E>(initialCapacity);
+        this(initialCapacity, comparator, new MutableInt<E>(), 2);
     }
 
     public Heap(int initialCapacity, Comparator<E> comparator, MutableInt<E> position) {
+        this(initialCapacity, comparator, position, 2);
+    }
+
+    public Heap(int initialCapacity, MutableInt<E> position) {
+        this(initialCapacity, new NaturalComparator<E>(), position, 2);
+    }
+
+    /**
+     * Create a d-ary heap, where arity is the number of children of each node,
+     * and must be a power of two.
+     */
+    public Heap(int initialCapacity, Comparator<E> comparator, MutableInt<E> position, int arity) {
         cmp = comparator;
         pos = position;
+        shift = arityShift(arity);
         queue = new ArrayList<E>(initialCapacity);
     }
 
-    public Heap(int initialCapacity, MutableInt<E> position) {
-        cmp = new NaturalComparator<E>();
+    /**
+     * Create a d-ary heap of the elements in collection, where arity is the
+     * number of children of each node, and must be a power of two.
+     */
+    public Heap(Collection<E> collection, Comparator<E> comparator, MutableInt<E> position, int arity) {
+        cmp = comparator;
         pos = position;
-        queue = new ArrayList<E>(initialCapacity);
+        shift = arityShift(arity);
+        queue = new ArrayList<E>(collection);
+        heapify();
+    }
+
+    /**
+     * Return the number of children of each node.
+     */
+    public int arity() {
+        return 1 << shift;
     }
 
     @Override
@@ -146,6 +169,53 @@ public class Heap<E> extends AbstractQueue<E> {
         return true;
     }
 
+    /**
+     * Insert the elements of another heap into this heap. The other heap must
+     * have the same ordering, and is not modified. The elements are copied in
+     * bulk, and then either pulled up one at a time, or ordered by heapify of
+     * only the nodes that hold them and their ancestors, whichever is expected
+     * to be faster.
+     *
+     * @throws IllegalArgumentException
+     *             if other is this heap
+     */
+    public void merge(Heap<E> other) {
+        if (other == this) {
+            throw new IllegalArgumentException("cannot merge a heap into itself");
+        }
+        int n = queue.size();
+        int m = other.queue.size();
+        queue.addAll(other.queue);
+        if (m * log(n + m) < (m + log(n + m) * log(n + m)) * log(2)) {
+            for (int i = n; i < n + m; ++i) {
+                pullUp(i);
+            }
+        }
+        else {
+            heapifyFrom(n);
+        }
+    }
+
+    /**
+     * Move the elements of another heap into this heap, leaving the other heap
+     * empty. The other heap must have the same ordering and arity. If neither
+     * heap tracks positions, this heap takes the storage of the other heap if
+     * that is larger, and merges its own elements into it.
+     */
+    public void meld(Heap<E> other) {
+        if (other == this) {
+            return;
+        }
+        if (other.queue.size() > queue.size() && pos.getClass() == MutableInt.class
+                && other.pos.getClass() == MutableInt.class && other.shift == shift) {
+            ArrayList<E> mine = queue;
+            queue = other.queue;
+            other.queue = mine;
+        }
+        merge(other);
+        other.clear();
+    }
+
     @Override
     public E peek() {
         return queue.get(0);
@@ -171,18 +241,90 @@ public class Heap<E> extends AbstractQueue<E> {
         return queue.iterator();
     }
 
+    /**
+     * Return an iterator that yields the elements in order, without modifying
+     * the heap. The first k elements are yielded in O(k log(k)) time. The
+     * iterator is not valid after the heap is modified.
+     */
+    public Iterator<E> sortedIterator() {
+        return new SortedIterator<E>(queue, cmp, 0) {
+            @Override
+            void expand(int i) {
+                int iDown = (i << shift) + 1;
+                int iEnd = Math.min(iDown + (1 << shift), queue.size());
+                for (; iDown < iEnd; ++iDown) {
+                    push(iDown);
+                }
+            }
+        };
+    }
+
+    /**
+     * Return a spliterator for the elements, which splits the backing array
+     * into ranges for parallel traversal. It does not yield elements in sorted
+     * order.
+     */
+    @Override
+    public Spliterator<E> spliterator() {
+        return new RangeSpliterator<E>(queue);
+    }
+
+    /**
+     * Return a stream of the elements in order, from a sorted copy of the
+     * heap. The copy is sorted in parallel if it is large. To take only the
+     * first few elements in order, {@link #sortedIterator()} is faster.
+     */
+    @SuppressWarnings("unchecked")
+    public Stream<E> sortedStream() {
+        E[] copy = (E[]) queue.toArray();
+        Arrays.parallelSort(copy, cmp);
+        return Arrays.stream(copy);
+    }
+
     @Override
     public int size() {
         return queue.size();
     }
 
+    private static int arityShift(int arity) {
+        if (arity < 2 || (arity & (arity - 1)) != 0) {
+            throw new IllegalArgumentException("arity must be a power of two");
+        }
+        return Integer.numberOfTrailingZeros(arity);
+    }
+
     private void heapify() {
-        int i = queue.size() - 1;
-        for (; 0 <= i; --i) {
+        if (ParallelHeapify.enabled(queue.size(), pos)) {
+            new ParallelHeapify(queue.size(), shift) {
+                @Override
+                void step(int k) {
+                    pushDown(k);
+                }
+            }.run();
+            return;
+        }
+        for (int i = queue.size() - 1; 0 <= i; --i) {
             pushDown(i);
         }
     }
 
+    /**
+     * Order the elements at positions n and after into the heap, where the
+     * positions before n are already ordered. Only those positions and their
+     * ancestors are pushed down, one level at a time from the deepest.
+     */
+    private void heapifyFrom(int n) {
+        int lo = n;
+        int hi = queue.size() - 1;
+        while (0 <= hi) {
+            for (int i = hi; lo <= i; --i) {
+                pushDown(i);
+            }
+            hi = Math.min((hi - 1) >> shift, lo - 1);
+            lo = (lo - 1) >> shift;
+        }
+    }
+
     private boolean less(E vA, E vB) {
         return cmp.compare(vA, vB) < 0;
     }
@@ -190,7 +332,7 @@ public class Heap<E> extends AbstractQueue<E> {
     private int pullUp(int i) {
         E v = queue.get(i);
         while (0 < i) {
-            int iUp = (i - 1) >> 1;
+            int iUp = (i - 1) >> shift;
             E vUp = queue.get(iUp);
             if (!less(v, vUp)) {
                 break;
@@ -207,14 +349,12 @@ public class Heap<E> extends AbstractQueue<E> {
     private int pushDown(int i) {
         E v = queue.get(i);
         int iBound = queue.size();
-        while (true) {
-            int iDown = (i << 1) + 1;
-            if (iBound <= iDown) {
-                break;
-            }
+        int iLast = (iBound - 2) >> shift;
+        while (i <= iLast) {
+            int iDown = (i << shift) + 1;
             E vDown = queue.get(iDown);
-            int iRight = iDown + 1;
-            if (iRight < iBound) {
+            int iEnd = Math.min(iDown + (1 << shift), iBound);
+            for (int iRight = iDown + 1; iRight < iEnd; ++iRight) {
                 E vRight = queue.get(iRight);
                 if (less(vRight, vDown)) {
                     vDown = vRight;
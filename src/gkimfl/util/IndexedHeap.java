@@ -0,0 +1,330 @@
+package gkimfl.util;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Single ended priority queue implemented as a heap of handles.
+ *
+ * Inserting an element returns an int handle, which identifies the element
+ * until it is removed. The position of each element is kept in an array
+ * indexed by handle, so the element of a handle can be removed, or moved after
+ * a change to its key, in log(N) time, without a {@link MutableInt} and
+ * without hashing. The time bounds are otherwise the same as for {@link Heap}.
+ *
+ * Handles are small integers, and are reused after their elements are
+ * removed. A handle must not be used after its element is removed. The heap
+ * does not permit null elements.
+ *
+ * @author Allen Hubbe
+ *
+ * @param <E>
+ *            - the type of elements held in this collection
+ */
+public class IndexedHeap<E> extends AbstractQueue<E> {
+    final Comparator<E> cmp;
+    Object[] elems;
+    int[] heap;
+    int[] pos;
+    int size;
+    private int[] free;
+    private int freeCount;
+    private int handleBound;
+
+    public IndexedHeap() {
+        this(10, new NaturalComparator<E>());
+    }
+
+    public IndexedHeap(Comparator<E> comparator) {
+        this(10, comparator);
+    }
+
+    public IndexedHeap(int initialCapacity) {
+        this(initialCapacity, new NaturalComparator<E>());
+    }
+
+    public IndexedHeap(int initialCapacity, Comparator<E> comparator) {
+        cmp = comparator;
+        initialCapacity = Math.max(1, initialCapacity);
+        elems = new Object[initialCapacity];
+        heap = new int[initialCapacity];
+        pos = new int[initialCapacity];
+        free = new int[initialCapacity];
+    }
+
+    /**
+     * Remove all elements from the heap. All handles become invalid.
+     */
+    @Override
+    public void clear() {
+        Arrays.fill(elems, 0, handleBound, null);
+        size = 0;
+        freeCount = 0;
+        handleBound = 0;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Insert an element into the heap, and return its handle.
+     */
+    public int insert(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        int h;
+        if (freeCount != 0) {
+            h = free[--freeCount];
+        }
+        else {
+            h = handleBound++;
+            if (h == elems.length) {
+                int n = h + (h >> 1) + 1;
+                elems = Arrays.copyOf(elems, n);
+                heap = Arrays.copyOf(heap, n);
+                pos = Arrays.copyOf(pos, n);
+                free = Arrays.copyOf(free, n);
+            }
+        }
+        elems[h] = e;
+        int i = size++;
+        heap[i] = h;
+        pos[h] = i;
+        pullUp(i);
+        return h;
+    }
+
+    /**
+     * Insert an element into the heap. Use {@link #insert(Object)} to obtain
+     * the handle of the element.
+     */
+    @Override
+    public boolean offer(E e) {
+        insert(e);
+        return true;
+    }
+
+    /**
+     * Return true if the handle refers to an element in the heap.
+     */
+    public boolean containsHandle(int handle) {
+        return 0 <= handle && handle < handleBound && elems[handle] != null;
+    }
+
+    /**
+     * Return the element of a handle.
+     */
+    public E get(int handle) {
+        check(handle);
+        return elem(handle);
+    }
+
+    /**
+     * Return the handle of the first element.
+     */
+    public int peekHandle() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return heap[0];
+    }
+
+    @Override
+    public E peek() {
+        return elem(peekHandle());
+    }
+
+    @Override
+    public E poll() {
+        return removeHandle(peekHandle());
+    }
+
+    /**
+     * Remove the element of a handle, and return the element.
+     */
+    public E removeHandle(int handle) {
+        check(handle);
+        E e = elem(handle);
+        int i = pos[handle];
+        int iBound = --size;
+        if (i != iBound) {
+            int hLast = heap[iBound];
+            heap[i] = hLast;
+            pos[hLast] = i;
+            pushDown(pullUp(i));
+        }
+        elems[handle] = null;
+        free[freeCount++] = handle;
+        return e;
+    }
+
+    /**
+     * Restore the order of the heap after the key of the element of a handle
+     * has changed in place.
+     */
+    public void update(int handle) {
+        check(handle);
+        pushDown(pullUp(pos[handle]));
+    }
+
+    /**
+     * Replace the element of a handle with an element that may be ordered
+     * anywhere relative to it.
+     */
+    public void update(int handle, E e) {
+        check(handle);
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        elems[handle] = e;
+        pushDown(pullUp(pos[handle]));
+    }
+
+    /**
+     * Replace the element of a handle with an element that is not ordered
+     * after it.
+     */
+    public void decreaseKey(int handle, E e) {
+        check(handle);
+        if (less(elem(handle), e)) {
+            throw new IllegalArgumentException("key increased");
+        }
+        elems[handle] = e;
+        pullUp(pos[handle]);
+    }
+
+    /**
+     * Replace the element of a handle with an element that is not ordered
+     * prior to it.
+     */
+    public void increaseKey(int handle, E e) {
+        check(handle);
+        if (less(e, elem(handle))) {
+            throw new IllegalArgumentException("key decreased");
+        }
+        elems[handle] = e;
+        pushDown(pos[handle]);
+    }
+
+    /**
+     * Remove an element equal to e. This scans the heap for the element, and
+     * takes O(N) time. Use {@link #removeHandle(int)} to remove an element by
+     * its handle in log(N) time.
+     */
+    @Override
+    public boolean removeElem(E e) {
+        for (int i = 0; i < size; ++i) {
+            int h = heap[i];
+            if (elems[h].equals(e)) {
+                removeHandle(h);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Return an iterator for the elements. This iterator does not yield
+     * elements in sorted order.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            int i = 0;
+
+            @Override
+            public boolean hasNext() {
+                return i < size;
+            }
+
+            @Override
+            public E next() {
+                if (size <= i) {
+                    throw new NoSuchElementException();
+                }
+                return elem(heap[i++]);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void check(int handle) {
+        if (!containsHandle(handle)) {
+            throw new IllegalArgumentException("invalid handle " + handle);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private E elem(int handle) {
+        return (E) elems[handle];
+    }
+
+    private boolean less(E vA, E vB) {
+        return cmp.compare(vA, vB) < 0;
+    }
+
+    private int pullUp(int i) {
+        int h = heap[i];
+        E v = elem(h);
+        while (0 < i) {
+            int iUp = (i - 1) >> 1;
+            int hUp = heap[iUp];
+            if (!less(v, elem(hUp))) {
+                break;
+            }
+            heap[i] = hUp;
+            pos[hUp] = i;
+            i = iUp;
+        }
+        heap[i] = h;
+        pos[h] = i;
+        return i;
+    }
+
+    private int pushDown(int i) {
+        int h = heap[i];
+        E v = elem(h);
+        int iBound = size;
+        while (true) {
+            int iDown = (i << 1) + 1;
+            if (iBound <= iDown) {
+                break;
+            }
+            int hDown = heap[iDown];
+            E vDown = elem(hDown);
+            int iRight = iDown + 1;
+            if (iRight < iBound) {
+                int hRight = heap[iRight];
+                E vRight = elem(hRight);
+                if (less(vRight, vDown)) {
+                    iDown = iRight;
+                    hDown = hRight;
+                    vDown = vRight;
+                }
+            }
+            if (!less(vDown, v)) {
+                break;
+            }
+            heap[i] = hDown;
+            pos[hDown] = i;
+            i = iDown;
+        }
+        heap[i] = h;
+        pos[h] = i;
+        return i;
+    }
+}
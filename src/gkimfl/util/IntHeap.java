@@ -0,0 +1,193 @@
+package gkimfl.util;
+
+import static java.lang.Math.log;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Single ended priority queue of primitive int values implemented as a heap.
+ *
+ * This is a specialization of {@link Heap} that stores values in a raw int
+ * array instead of boxing them into a list. Values are ordered smallest first.
+ * The first value can be accessed in O(1) time, and values can be inserted and
+ * removed in log(N) time. Many values can be inserted at once with time
+ * bounded by O(N). Apart from growing the array, no operation allocates.
+ *
+ * @author Allen Hubbe
+ */
+public class IntHeap {
+    int[] queue;
+    int size;
+
+    public IntHeap() {
+        queue = new int[16];
+    }
+
+    public IntHeap(int initialCapacity) {
+        queue = new int[Math.max(1, initialCapacity)];
+    }
+
+    public IntHeap(int[] values) {
+        queue = Arrays.copyOf(values, Math.max(1, values.length));
+        size = values.length;
+        heapify();
+    }
+
+    /**
+     * Remove all values from the heap.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Return true if the heap is empty.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Return the number of values in the heap.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Insert several values into the heap. If the number of values to be added
+     * is large, this may call heapify for efficiency instead of adding the
+     * values one at a time. Return true if any value was added, as
+     * {@link java.util.Collection#addAll} does.
+     */
+    public boolean addAll(int[] values) {
+        int cSize = values.length;
+        int nSize = cSize + size;
+        ensureCapacity(nSize);
+        if (nSize <= cSize * log(nSize) / log(2)) {
+            System.arraycopy(values, 0, queue, size, cSize);
+            size = nSize;
+            heapify();
+        }
+        else {
+            for (int i = 0; i < cSize; ++i) {
+                offer(values[i]);
+            }
+        }
+        return cSize != 0;
+    }
+
+    /**
+     * Insert a value into the heap.
+     */
+    public boolean offer(int v) {
+        int i = size;
+        if (i == queue.length) {
+            ensureCapacity(i + 1);
+        }
+        size = i + 1;
+        pullUp(i, v);
+        return true;
+    }
+
+    /**
+     * Return the minimum value.
+     */
+    public int peek() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return queue[0];
+    }
+
+    /**
+     * Return and remove the minimum value.
+     */
+    public int poll() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        int v = queue[0];
+        int i = --size;
+        if (i != 0) {
+            pushDown(0, queue[i]);
+        }
+        return v;
+    }
+
+    /**
+     * Return a copy of the values in the heap. The values are not in sorted
+     * order.
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(queue, size);
+    }
+
+    /**
+     * Grow the backing array, if necessary, to hold at least minCapacity
+     * values.
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (queue.length < minCapacity) {
+            int capacity = queue.length + (queue.length >> 1) + 1;
+            queue = Arrays.copyOf(queue, Math.max(capacity, minCapacity));
+        }
+    }
+
+    private void heapify() {
+        for (int i = (size >> 1) - 1; 0 <= i; --i) {
+            pushDown(i, queue[i]);
+        }
+    }
+
+    /**
+     * Place value v in the hole at position i, pulling it up until it
+     * satisfies the heap invariant.
+     */
+    private int pullUp(int i, int v) {
+        int[] q = queue;
+        while (0 < i) {
+            int iUp = (i - 1) >> 1;
+            int vUp = q[iUp];
+            if (!(v < vUp)) {
+                break;
+            }
+            q[i] = vUp;
+            i = iUp;
+        }
+        q[i] = v;
+        return i;
+    }
+
+    /**
+     * Place value v in the hole at position i, pushing it down until it
+     * satisfies the heap invariant.
+     */
+    private int pushDown(int i, int v) {
+        int[] q = queue;
+        int iBound = size;
+        while (true) {
+            int iDown = (i << 1) + 1;
+            if (iBound <= iDown) {
+                break;
+            }
+            int vDown = q[iDown];
+            int iRight = iDown + 1;
+            if (iRight < iBound) {
+                int vRight = q[iRight];
+                if (vRight < vDown) {
+                    vDown = vRight;
+                    iDown = iRight;
+                }
+            }
+            if (!(vDown < v)) {
+                break;
+            }
+            q[i] = vDown;
+            i = iDown;
+        }
+        q[i] = v;
+        return i;
+    }
+}
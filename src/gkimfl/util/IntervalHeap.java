@@ -1,13 +1,16 @@
 package gkimfl.util;
 
 import static java.lang.Math.log;
-import static java.util.Collections.swap;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Stream;
 
 /**
  * Double ended priority queue implemented as an interval heap.
@@ -24,6 +27,20 @@ import java.util.List;
  * in the odd array indices. Intervals can be reconstructed from the even odd
  * pairs.
  * 
+ * Arbitrary elements may be removed, or moved after a change to their order,
+ * if the position in the queue is tracked for each element. Positions are
+ * reported to a {@link MutableInt}, as for {@link Heap}.
+ * 
+ * Heapifying a large collection, from a constructor or from addAll, builds
+ * independent subtrees in parallel on the common ForkJoinPool, unless the
+ * positions of elements are tracked.
+ * 
+ * The elements may be iterated in order from either end without removing
+ * them, by {@link #sortedIterator()} and {@link #descendingIterator()}, or
+ * streamed in order from a sorted copy, by {@link #sortedStream()}. The
+ * spliterator splits the backing array by range, for parallel streams that do
+ * not need order.
+ * 
  * @author Allen Hubbe
  * 
  * @param <E>
@@ -31,42 +48,80 @@ import java.util.List;
  */
 public class IntervalHeap<E> extends AbstractDequeue<E> {
     private final Comparator<E> cmp;
+    private final MutableInt<E> pos;
     List<E> queue;
 
     public IntervalHeap() {
         cmp = new NaturalComparator<E>();
+        pos = new MutableInt<E>();
         queue = new ArrayList<E>();
     }
 
+    /**
+     * Create a copy of another heap. The copy does not track positions.
+     */
     public IntervalHeap(IntervalHeap<E> other) {
         cmp = other.cmp;
+        pos = new MutableInt<E>();
         queue = new ArrayList<E>(other.queue);
     }
 
     public IntervalHeap(Comparator<E> comparator) {
         cmp = comparator;
+        pos = new MutableInt<E>();
+        queue = new ArrayList<E>();
+    }
+
+    public IntervalHeap(Comparator<E> comparator, MutableInt<E> position) {
+        cmp = comparator;
+        pos = position;
+        queue = new ArrayList<E>();
+    }
+
+    public IntervalHeap(MutableInt<E> position) {
+        cmp = new NaturalComparator<E>();
+        pos = position;
         queue = new ArrayList<E>();
     }
 
     public IntervalHeap(Collection<? extends E> c) {
         cmp = new NaturalComparator<E>();
+        pos = new MutableInt<E>();
         queue = new ArrayList<E>(c);
         heapify();
     }
 
     public IntervalHeap(Collection<? extends E> c, Comparator<E> comparator) {
         cmp = comparator;
+        pos = new MutableInt<E>();
+        queue = new ArrayList<E>(c);
+        heapify();
+    }
+
+    public IntervalHeap(Collection<? extends E> c, Comparator<E> comparator,
+            MutableInt<E> position) {
+        cmp = comparator;
+        pos = position;
         queue = new ArrayList<E>(c);
         heapify();
     }
 
     public IntervalHeap(int initialCapacity) {
         cmp = new NaturalComparator<E>();
+        pos = new MutableInt<E>();
         queue = new ArrayList<E>(initialCapacity);
     }
 
     public IntervalHeap(int initialCapacity, Comparator<E> comparator) {
         cmp = comparator;
+        pos = new MutableInt<E>();
+        queue = new ArrayList<E>(initialCapacity);
+    }
+
+    public IntervalHeap(int initialCapacity, Comparator<E> comparator,
+            MutableInt<E> position) {
+        cmp = comparator;
+        pos = position;
         queue = new ArrayList<E>(initialCapacity);
     }
 
@@ -95,6 +150,55 @@ public class IntervalHeap<E> extends AbstractDequeue<E> {
         return queue.iterator();
     }
 
+    /**
+     * Return an iterator that yields the elements from first to last, without
+     * modifying the heap. The first k elements are yielded in O(k log(k))
+     * time. The iterator is not valid after the heap is modified.
+     */
+    public Iterator<E> sortedIterator() {
+        // each min element is followed by the max element of its interval,
+        // and by the min elements of its children
+        return new SortedIterator<E>(queue, cmp, 0) {
+            @Override
+            void expand(int i) {
+                if ((i & 1) != 0) {
+                    return;
+                }
+                int iBound = queue.size();
+                if (i + 1 < iBound) {
+                    push(i + 1);
+                }
+                for (int iDown = (i << 1) + 2; iDown < iBound && iDown <= (i << 1) + 4; iDown += 2) {
+                    push(iDown);
+                }
+            }
+        };
+    }
+
+    /**
+     * Return an iterator that yields the elements from last to first, without
+     * modifying the heap. The first k elements are yielded in O(k log(k))
+     * time. The iterator is not valid after the heap is modified.
+     */
+    public Iterator<E> descendingIterator() {
+        // each max element is followed by the min element of its interval,
+        // and by the max elements of its children, or by the single element
+        // of a last interval that has only one
+        return new SortedIterator<E>(queue, Collections.reverseOrder(cmp), queue.size() == 1 ? 0 : 1) {
+            @Override
+            void expand(int i) {
+                if ((i & 1) == 0) {
+                    return;
+                }
+                int iBound = queue.size();
+                push(i - 1);
+                for (int iDown = (i << 1) + 1; iDown <= iBound && iDown <= (i << 1) + 3; iDown += 2) {
+                    push(iDown == iBound ? iDown - 1 : iDown);
+                }
+            }
+        };
+    }
+
     /**
      * Insert several elements into the heap. If the number of elements to be
      * added is large, this may call heapify for efficiency instead of adding
@@ -120,21 +224,55 @@ public class IntervalHeap<E> extends AbstractDequeue<E> {
     @Override
     public boolean offer(E e) {
         queue.add(e);
-        int iBound = queue.size();
-        int i = iBound - 1;
-        if ((i & 1) == 0) {
-            pullUpMax(i);
-            pullUpMin(i);
+        insert(queue.size() - 1);
+        return true;
+    }
+
+    /**
+     * Insert the elements of another heap into this heap. The other heap must
+     * have the same ordering, and is not modified. The elements are copied in
+     * bulk, and then either pulled up one at a time, or ordered by heapify of
+     * only the intervals that hold them and their ancestors, whichever is
+     * expected to be faster.
+     *
+     * @throws IllegalArgumentException
+     *             if other is this heap
+     */
+    public void merge(IntervalHeap<E> other) {
+        if (other == this) {
+            throw new IllegalArgumentException("cannot merge a heap into itself");
         }
-        else {
-            pullUpMax(i);
-            if (lessAt(i, i - 1)) {
-                swap(queue, i, i - 1);
-                pullUpMin(i - 1);
-                pullUpMax(i);
+        int n = queue.size();
+        int m = other.queue.size();
+        queue.addAll(other.queue);
+        if (m * log(n + m) < (m + log(n + m) * log(n + m)) * log(2)) {
+            for (int i = n; i < n + m; ++i) {
+                insert(i);
             }
         }
-        return true;
+        else {
+            heapifyFrom(n);
+        }
+    }
+
+    /**
+     * Move the elements of another heap into this heap, leaving the other heap
+     * empty. The other heap must have the same ordering. If neither heap tracks
+     * positions, this heap takes the storage of the other heap if that is
+     * larger, and merges its own elements into it.
+     */
+    public void meld(IntervalHeap<E> other) {
+        if (other == this) {
+            return;
+        }
+        if (other.queue.size() > queue.size() && pos.getClass() == MutableInt.class
+                && other.pos.getClass() == MutableInt.class) {
+            List<E> mine = queue;
+            queue = other.queue;
+            other.queue = mine;
+        }
+        merge(other);
+        other.clear();
     }
 
     /**
@@ -176,7 +314,7 @@ public class IntervalHeap<E> extends AbstractDequeue<E> {
                 else if (i + 1 < iBound && lessAt(i + 1, i)) {
                     // i is a leaf of the min heap
                     assert ((i << 1) + 2 > iBound);
-                    swap(queue, i + 1, i);
+                    swap(i + 1, i);
                     pullUpMax(i + 1);
                 }
             }
@@ -208,7 +346,7 @@ public class IntervalHeap<E> extends AbstractDequeue<E> {
                 else if (lessAt(i, i - 1)) {
                     // i is a leaf of the max heap
                     assert ((i << 1) + 1 > iBound);
-                    swap(queue, i, i - 1);
+                    swap(i, i - 1);
                     pullUpMin(i - 1);
                 }
             }
@@ -217,11 +355,75 @@ public class IntervalHeap<E> extends AbstractDequeue<E> {
     }
 
     /**
-     * Removing arbitrary elements is not supported.
+     * Remove an arbitrary element. The position of the element must be tracked.
      */
     @Override
     public boolean removeElem(E e) {
-        throw new UnsupportedOperationException();
+        int i = pos.get(e);
+        int iBound = queue.size() - 1;
+        if (i == iBound) {
+            queue.remove(iBound);
+        }
+        else {
+            set(i, queue.remove(iBound));
+            fix(i);
+        }
+        return true;
+    }
+
+    /**
+     * Restore the order of the heap after the order of an element has changed.
+     * The position of the element must be tracked.
+     */
+    public void update(E e) {
+        fix(pos.get(e));
+    }
+
+    /**
+     * Replace the minimum element with e, and return the minimum. This is
+     * equivalent to pollFirst followed by offer, but pushes e down from the
+     * top of the heap only once.
+     */
+    public E replaceFirst(E e) {
+        E first = queue.get(0);
+        set(0, e);
+        fix(0);
+        return first;
+    }
+
+    /**
+     * Replace the maximum element with e, and return the maximum. This is
+     * equivalent to pollLast followed by offer, but pushes e down from the top
+     * of the heap only once.
+     */
+    public E replaceLast(E e) {
+        int i = queue.size() < 2 ? 0 : 1;
+        E last = queue.get(i);
+        set(i, e);
+        fix(i);
+        return last;
+    }
+
+    /**
+     * Return a spliterator for the elements, which splits the backing array
+     * into ranges for parallel traversal. It does not yield elements in sorted
+     * order.
+     */
+    @Override
+    public Spliterator<E> spliterator() {
+        return new RangeSpliterator<E>(queue);
+    }
+
+    /**
+     * Return a stream of the elements in order, from a sorted copy of the
+     * heap. The copy is sorted in parallel if it is large. To take only the
+     * first few elements in order, {@link #sortedIterator()} is faster.
+     */
+    @SuppressWarnings("unchecked")
+    public Stream<E> sortedStream() {
+        E[] copy = (E[]) queue.toArray();
+        Arrays.parallelSort(copy, cmp);
+        return Arrays.stream(copy);
     }
 
     /**
@@ -232,6 +434,96 @@ public class IntervalHeap<E> extends AbstractDequeue<E> {
         return queue.size();
     }
 
+    /**
+     * Order the element at position i into the heap, where the positions
+     * before i are already ordered, and the positions after i are ignored.
+     */
+    private void insert(int i) {
+        if ((i & 1) == 0) {
+            pullUpMax(i);
+            pullUpMin(i);
+        }
+        else {
+            pullUpMax(i);
+            if (lessAt(i, i - 1)) {
+                swap(i, i - 1);
+                pullUpMin(i - 1);
+                pullUpMax(i);
+            }
+        }
+    }
+
+    private void set(int i, E v) {
+        queue.set(i, v);
+        pos.set(v, i);
+    }
+
+    private void swap(int iA, int iB) {
+        E vA = queue.get(iA);
+        set(iA, queue.get(iB));
+        set(iB, vA);
+    }
+
+    /**
+     * Restore the min heap and the max heap after the element at position i
+     * has been replaced by an element that may be ordered anywhere relative to
+     * the others.
+     */
+    private void fix(int i) {
+        int iBound = queue.size();
+        if ((i & 1) == 0) {
+            if (i + 1 < iBound && lessAt(i + 1, i)) {
+                // the new element belongs at the top of the interval
+                swap(i + 1, i);
+                pullUpMax(i + 1);
+                fixLeafMin(pushDownMin(i));
+            }
+            else if (pullUpMin(i) == i) {
+                fixLeafMin(pushDownMin(i));
+            }
+        }
+        else {
+            if (lessAt(i, i - 1)) {
+                // the new element belongs at the bottom of the interval
+                swap(i, i - 1);
+                pullUpMin(i - 1);
+                fixLeafMax(pushDownMax(i));
+            }
+            else if (pullUpMax(i) == i) {
+                fixLeafMax(pushDownMax(i));
+            }
+        }
+    }
+
+    /**
+     * Restore the interval at position i, where an element has been pushed down
+     * the min heap.
+     */
+    private void fixLeafMin(int i) {
+        int iBound = queue.size();
+        if (i + 1 == iBound) {
+            pullUpMax(i);
+        }
+        else if (i + 1 < iBound && lessAt(i + 1, i)) {
+            swap(i + 1, i);
+            pullUpMax(i + 1);
+        }
+    }
+
+    /**
+     * Restore the interval at position i, where an element has been pushed down
+     * the max heap.
+     */
+    private void fixLeafMax(int i) {
+        if ((i & 1) == 0) {
+            pullUpMin(i);
+        }
+        else if (lessAt(i, i - 1)) {
+            swap(i, i - 1);
+            pullUpMin(i - 1);
+        }
+    }
+
     /**
      * Return true if vA should should be ordered prior to vB.
      */
@@ -258,34 +550,81 @@ public class IntervalHeap<E> extends AbstractDequeue<E> {
      */
     private void heapify() {
         int iBound = queue.size();
-        for (int i = iBound - 1; 0 <= i; --i) {
-            if ((i & 1) == 0) {
-                int j = pushDownMin(i);
-                if (j + 1 == iBound) {
-                    pullUpMax(j, i + 1);
+        if (ParallelHeapify.enabled(iBound, pos)) {
+            final int iLast = iBound - 1;
+            new ParallelHeapify((iBound + 1) >> 1, 1) {
+                @Override
+                void step(int k) {
+                    int i = (k << 1) + 1;
+                    if (i <= iLast) {
+                        heapify(i);
+                    }
+                    heapify(i - 1);
                 }
-                else if (j + 1 < iBound && lessAt(j + 1, j)) {
-                    swap(queue, j + 1, j);
-                    pullUpMin(j, i);
-                    pullUpMax(j + 1, i + 1);
+            }.run();
+            return;
+        }
+        for (int i = iBound - 1; 0 <= i; --i) {
+            heapify(i);
+        }
+    }
+
+    /**
+     * Order the elements at positions n and after into the heap, where the
+     * positions before n are already ordered. Only the intervals holding
+     * those positions, and their ancestors, are heapified, one level at a time
+     * from the deepest.
+     */
+    private void heapifyFrom(int n) {
+        int iBound = queue.size();
+        int kLo = n >> 1;
+        int kHi = (iBound - 1) >> 1;
+        while (0 <= kHi) {
+            for (int k = kHi; kLo <= k; --k) {
+                int i = (k << 1) + 1;
+                if (i < iBound) {
+                    heapify(i);
                 }
+                heapify(i - 1);
             }
-            else {
-                if (0 <= i - 1 && lessAt(i, i - 1)) {
-                    swap(queue, i, i - 1);
-                }
+            kHi = Math.min((kHi - 1) >> 1, kLo - 1);
+            kLo = (kLo - 1) >> 1;
+        }
+    }
 
-                int j = pushDownMax(i);
-                if ((j & 1) == 0) {
-                    assert (i < j);
-                    assert (j + 1 == iBound);
-                    pullUpMin(j, i + 1);
-                }
-                else if (i < j && lessAt(j, j - 1)) {
-                    swap(queue, j, j - 1);
-                    pullUpMax(j, i);
-                    pullUpMin(j - 1, i + 1);
-                }
+    /**
+     * Order the element at position i into the heap, where the subtrees of
+     * the children of its interval, and the rest of its interval, are already
+     * ordered. This touches only the subtree of the interval of position i.
+     */
+    private void heapify(int i) {
+        int iBound = queue.size();
+        if ((i & 1) == 0) {
+            int j = pushDownMin(i);
+            if (j + 1 == iBound) {
+                pullUpMax(j, i + 1);
+            }
+            else if (j + 1 < iBound && lessAt(j + 1, j)) {
+                swap(j + 1, j);
+                pullUpMin(j, i);
+                pullUpMax(j + 1, i + 1);
+            }
+        }
+        else {
+            if (0 <= i - 1 && lessAt(i, i - 1)) {
+                swap(i, i - 1);
+            }
+
+            int j = pushDownMax(i);
+            if ((j & 1) == 0) {
+                assert (i < j);
+                assert (j + 1 == iBound);
+                pullUpMin(j, i + 1);
+            }
+            else if (i < j && lessAt(j, j - 1)) {
+                swap(j, j - 1);
+                pullUpMax(j, i);
+                pullUpMin(j - 1, i + 1);
             }
         }
     }
@@ -304,10 +643,10 @@ public class IntervalHeap<E> extends AbstractDequeue<E> {
             if (!less(vUp, v)) {
                 break;
             }
-            queue.set(i, vUp);
+            set(i, vUp);
             i = iUp;
         }
-        queue.set(i, v);
+        set(i, v);
         return i;
     }
 
@@ -324,10 +663,10 @@ public class IntervalHeap<E> extends AbstractDequeue<E> {
             if (!less(v, vUp)) {
                 break;
             }
-            queue.set(i, vUp);
+            set(i, vUp);
             i = iUp;
         }
-        queue.set(i, v);
+        set(i, v);
         return i;
     }
 
@@ -343,10 +682,10 @@ public class IntervalHeap<E> extends AbstractDequeue<E> {
             if (iUp < base || !less(vUp, v)) {
                 break;
             }
-            queue.set(i, vUp);
+            set(i, vUp);
             i = iUp;
         }
-        queue.set(i, v);
+        set(i, v);
         return i;
     }
 
@@ -362,10 +701,10 @@ public class IntervalHeap<E> extends AbstractDequeue<E> {
             if (iUp < base || !less(v, vUp)) {
                 break;
             }
-            queue.set(i, vUp);
+            set(i, vUp);
             i = iUp;
         }
-        queue.set(i, v);
+        set(i, v);
         return i;
     }
 
@@ -405,10 +744,10 @@ public class IntervalHeap<E> extends AbstractDequeue<E> {
             if (!less(v, vDown)) {
                 break;
             }
-            queue.set(i, vDown);
+            set(i, vDown);
             i = iDown;
         }
-        queue.set(i, v);
+        set(i, v);
         return i;
     }
 
@@ -436,10 +775,10 @@ public class IntervalHeap<E> extends AbstractDequeue<E> {
             if (!less(vDown, v)) {
                 break;
             }
-            queue.set(i, vDown);
+            set(i, vDown);
             i = iDown;
         }
-        queue.set(i, v);
+        set(i, v);
         return i;
     }
 }
@@ -0,0 +1,30 @@
+package gkimfl.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Record codec for Long elements, in their natural ordering.
+ * 
+ * @author Allen Hubbe
+ */
+public class LongCodec implements RecordCodec<Long> {
+    @Override
+    public int width() {
+        return 8;
+    }
+
+    @Override
+    public void encode(Long e, ByteBuffer buf, int offset) {
+        buf.putLong(offset, e);
+    }
+
+    @Override
+    public Long decode(ByteBuffer buf, int offset) {
+        return buf.getLong(offset);
+    }
+
+    @Override
+    public int compare(ByteBuffer bufA, int offsetA, ByteBuffer bufB, int offsetB) {
+        return Long.compare(bufA.getLong(offsetA), bufB.getLong(offsetB));
+    }
+}
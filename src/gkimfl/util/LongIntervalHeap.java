@@ -0,0 +1,402 @@
+package gkimfl.util;
+
+import static java.lang.Math.log;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Double ended priority queue of primitive long values implemented as an
+ * interval heap.
+ *
+ * This is a specialization of {@link IntervalHeap} that stores values in a raw
+ * long array instead of boxing them into a list. The layout is the same: a min
+ * heap in the even array indices, and a max heap in the odd array indices. The
+ * minimum and maximum values can be queried in constant O(1) time, and removed
+ * in O(log(N)) time. Values can be added in O(log(N)) time, and many values
+ * can be added at once with time bounded by O(N). Apart from growing the
+ * array, no operation allocates.
+ *
+ * @author Allen Hubbe
+ */
+public class LongIntervalHeap {
+    long[] queue;
+    int size;
+
+    public LongIntervalHeap() {
+        queue = new long[16];
+    }
+
+    public LongIntervalHeap(LongIntervalHeap other) {
+        queue = Arrays.copyOf(other.queue, Math.max(1, other.size));
+        size = other.size;
+    }
+
+    public LongIntervalHeap(int initialCapacity) {
+        queue = new long[Math.max(1, initialCapacity)];
+    }
+
+    public LongIntervalHeap(long[] values) {
+        queue = Arrays.copyOf(values, Math.max(1, values.length));
+        size = values.length;
+        heapify();
+    }
+
+    /**
+     * Remove all values from the heap.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Return true if the heap is empty.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Return the number of values in the heap.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Insert several values into the heap. If the number of values to be added
+     * is large, this may call heapify for efficiency instead of adding the
+     * values one at a time.
+     */
+    public boolean addAll(long[] values) {
+        int cSize = values.length;
+        int nSize = cSize + size;
+        ensureCapacity(nSize);
+        if (nSize <= cSize * log(nSize) / log(2)) {
+            System.arraycopy(values, 0, queue, size, cSize);
+            size = nSize;
+            heapify();
+        }
+        else {
+            for (int i = 0; i < cSize; ++i) {
+                offer(values[i]);
+            }
+        }
+        return cSize != 0;
+    }
+
+    /**
+     * Insert a value into the heap.
+     */
+    public boolean offer(long v) {
+        int i = size;
+        if (i == queue.length) {
+            ensureCapacity(i + 1);
+        }
+        queue[i] = v;
+        size = i + 1;
+        if ((i & 1) == 0) {
+            pullUpMax(i);
+            pullUpMin(i);
+        }
+        else {
+            pullUpMax(i);
+            if (lessAt(i, i - 1)) {
+                swap(i, i - 1);
+                pullUpMin(i - 1);
+                pullUpMax(i);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Return the minimum value.
+     */
+    public long peekFirst() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return queue[0];
+    }
+
+    /**
+     * Return the maximum value.
+     */
+    public long peekLast() {
+        if (size < 2) {
+            return peekFirst();
+        }
+        return queue[1];
+    }
+
+    /**
+     * Return and remove the minimum value.
+     */
+    public long pollFirst() {
+        int iBound = size - 1;
+        if (iBound < 1) {
+            long v = peekFirst();
+            size = 0;
+            return v;
+        }
+        else {
+            long v = queue[0];
+            queue[0] = queue[iBound];
+            size = iBound;
+            int i = pushDownMin(0);
+            if (i + 1 == iBound) {
+                pullUpMax(i);
+            }
+            else if (i + 1 < iBound && lessAt(i + 1, i)) {
+                // i is a leaf of the min heap
+                swap(i + 1, i);
+                pullUpMax(i + 1);
+            }
+            return v;
+        }
+    }
+
+    /**
+     * Return and remove the maximum value.
+     */
+    public long pollLast() {
+        int iBound = size - 1;
+        if (iBound < 1) {
+            long v = peekFirst();
+            size = 0;
+            return v;
+        }
+        else {
+            long v = queue[1];
+            size = iBound;
+            if (1 < iBound) {
+                queue[1] = queue[iBound];
+                int i = pushDownMax(1);
+                if ((i & 1) == 0) {
+                    pullUpMin(i);
+                }
+                else if (lessAt(i, i - 1)) {
+                    // i is a leaf of the max heap
+                    swap(i, i - 1);
+                    pullUpMin(i - 1);
+                }
+            }
+            return v;
+        }
+    }
+
+    /**
+     * Return a copy of the values in the heap. The values are not in sorted
+     * order.
+     */
+    public long[] toArray() {
+        return Arrays.copyOf(queue, size);
+    }
+
+    /**
+     * Grow the backing array, if necessary, to hold at least minCapacity
+     * values.
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (queue.length < minCapacity) {
+            int capacity = queue.length + (queue.length >> 1) + 1;
+            queue = Arrays.copyOf(queue, Math.max(capacity, minCapacity));
+        }
+    }
+
+    /**
+     * Return true if vA should be ordered prior to vB.
+     */
+    private static boolean less(long vA, long vB) {
+        return vA < vB;
+    }
+
+    /**
+     * Return true if the value at iA should be ordered prior to the value at
+     * iB.
+     */
+    private boolean lessAt(int iA, int iB) {
+        return less(queue[iA], queue[iB]);
+    }
+
+    private void swap(int iA, int iB) {
+        long v = queue[iA];
+        queue[iA] = queue[iB];
+        queue[iB] = v;
+    }
+
+    /**
+     * Efficiently order values into heap in O(N) time. See
+     * {@link IntervalHeap} for a description of the algorithm.
+     */
+    private void heapify() {
+        int iBound = size;
+        for (int i = iBound - 1; 0 <= i; --i) {
+            if ((i & 1) == 0) {
+                int j = pushDownMin(i);
+                if (j + 1 == iBound) {
+                    pullUpMax(j, i + 1);
+                }
+                else if (j + 1 < iBound && lessAt(j + 1, j)) {
+                    swap(j + 1, j);
+                    pullUpMin(j, i);
+                    pullUpMax(j + 1, i + 1);
+                }
+            }
+            else {
+                if (lessAt(i, i - 1)) {
+                    swap(i, i - 1);
+                }
+
+                int j = pushDownMax(i);
+                if ((j & 1) == 0) {
+                    pullUpMin(j, i + 1);
+                }
+                else if (i < j && lessAt(j, j - 1)) {
+                    swap(j, j - 1);
+                    pullUpMax(j, i);
+                    pullUpMin(j - 1, i + 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Pull a value at position i up in the max heap until it satisfies the
+     * max heap invariant.
+     */
+    private int pullUpMax(int i) {
+        return pullUpMax(i, 1);
+    }
+
+    /**
+     * Pull a value at position i up in the min heap until it satisfies the
+     * min heap invariant.
+     */
+    private int pullUpMin(int i) {
+        return pullUpMin(i, 0);
+    }
+
+    /**
+     * Pull a value at position i up in the max heap until it satisfies the
+     * max heap invariant, but do not consider ancestors before position base.
+     */
+    private int pullUpMax(int i, int base) {
+        long[] q = queue;
+        long v = q[i];
+        while (base < i) {
+            int iUp = ((i >> 1) - 1) | 1;
+            if (iUp < base) {
+                break;
+            }
+            long vUp = q[iUp];
+            if (!less(vUp, v)) {
+                break;
+            }
+            q[i] = vUp;
+            i = iUp;
+        }
+        q[i] = v;
+        return i;
+    }
+
+    /**
+     * Pull a value at position i up in the min heap until it satisfies the
+     * min heap invariant, but do not consider ancestors before position base.
+     */
+    private int pullUpMin(int i, int base) {
+        long[] q = queue;
+        long v = q[i];
+        while (base < i) {
+            int iUp = ((i >> 1) - 1) & ~1;
+            if (iUp < base) {
+                break;
+            }
+            long vUp = q[iUp];
+            if (!less(v, vUp)) {
+                break;
+            }
+            q[i] = vUp;
+            i = iUp;
+        }
+        q[i] = v;
+        return i;
+    }
+
+    /**
+     * Push a value at position i down in the max heap until it satisfies the
+     * max heap invariant. The resulting position is normally in the max heap,
+     * but may be in the min heap if it is a leaf representing an empty
+     * interval.
+     */
+    private int pushDownMax(int i) {
+        long[] q = queue;
+        int iBound = size;
+        long v = q[i];
+        while (true) {
+            int iDown = (i << 1) + 1;
+            long vDown;
+            if (iBound < iDown) {
+                break;
+            }
+            if (iDown == iBound) {
+                iDown = iBound - 1;
+                vDown = q[iDown];
+            }
+            else {
+                vDown = q[iDown];
+                int iRight = iDown + 2;
+                if (iRight <= iBound) {
+                    if (iRight == iBound) {
+                        iRight = iBound - 1;
+                    }
+                    long vRight = q[iRight];
+                    if (less(vDown, vRight)) {
+                        vDown = vRight;
+                        iDown = iRight;
+                    }
+                }
+            }
+            if (!less(v, vDown)) {
+                break;
+            }
+            q[i] = vDown;
+            i = iDown;
+        }
+        q[i] = v;
+        return i;
+    }
+
+    /**
+     * Push a value at position i down in the min heap until it satisfies the
+     * min heap invariant. The resulting position will be in the min heap.
+     */
+    private int pushDownMin(int i) {
+        long[] q = queue;
+        int iBound = size;
+        long v = q[i];
+        while (true) {
+            int iDown = (i << 1) + 2;
+            if (iBound <= iDown) {
+                break;
+            }
+            long vDown = q[iDown];
+            int iRight = iDown + 2;
+            if (iRight < iBound) {
+                long vRight = q[iRight];
+                if (less(vRight, vDown)) {
+                    vDown = vRight;
+                    iDown = iRight;
+                }
+            }
+            if (!less(vDown, v)) {
+                break;
+            }
+            q[i] = vDown;
+            i = iDown;
+        }
+        q[i] = v;
+        return i;
+    }
+}
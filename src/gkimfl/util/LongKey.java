@@ -0,0 +1,9 @@
+package gkimfl.util;
+
+/**
+ * Integer key of an element, for queues ordered by keys instead of by a
+ * comparator.
+ */
+public abstract class LongKey<E> {
+    public abstract long get(E o);
+}
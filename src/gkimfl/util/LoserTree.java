@@ -0,0 +1,166 @@
+package gkimfl.util;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterator that merges k sorted iterators, using a tournament tree of losers.
+ *
+ * Each internal node of the tree holds the source that lost the match played
+ * at that node, and the root holds the source of the overall winner. After
+ * the winner is taken, only the matches on the path from its leaf to the root
+ * are replayed, against the losers stored along that path, so each element
+ * costs one comparison per level, or about log(k) comparisons. A {@link Heap}
+ * of sources costs up to twice that, since pushing down compares both children
+ * on each level.
+ *
+ * Elements may be ordered by a comparator, or by long keys given by a
+ * {@link LongKey}. With keys, the key of the head of each source is computed
+ * once, and the matches compare primitive longs. Equal elements are yielded in
+ * the order of their sources, so the merge is stable.
+ *
+ * The sources are read lazily, one element ahead of the merged output.
+ *
+ * @author Allen Hubbe
+ *
+ * @param <E>
+ *            - the type of elements yielded by this iterator
+ */
+public class LoserTree<E> implements Iterator<E> {
+    private final Iterator<? extends E>[] sources;
+    private final Comparator<E> cmp;
+    private final LongKey<E> key;
+    private final Object[] heads;
+    private final long[] keys;
+    private final boolean[] done;
+    final int[] tree;
+    private final int k;
+
+    public LoserTree(List<? extends Iterator<? extends E>> sources) {
+        this(sources, new NaturalComparator<E>(), null);
+    }
+
+    public LoserTree(List<? extends Iterator<? extends E>> sources, Comparator<E> comparator) {
+        this(sources, comparator, null);
+    }
+
+    public LoserTree(List<? extends Iterator<? extends E>> sources, LongKey<E> key) {
+        this(sources, null, key);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private LoserTree(List<? extends Iterator<? extends E>> sources, Comparator<E> comparator, LongKey<E> key) {
+        this.k = sources.size();
+        this.sources = sources.toArray(new Iterator[k]);
+        this.cmp = comparator;
+        this.key = key;
+        this.heads = new Object[k];
+        this.keys = key == null ? null : new long[k];
+        this.done = new boolean[k];
+        this.tree = new int[Math.max(1, k)];
+        for (int s = 0; s < k; ++s) {
+            read(s);
+        }
+        build();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return k != 0 && !done[tree[0]];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        int s = tree[0];
+        E e = (E) heads[s];
+        read(s);
+        for (int n = (s + k) >> 1; 0 < n; n >>= 1) {
+            int t = tree[n];
+            if (beats(t, s)) {
+                tree[n] = s;
+                s = t;
+            }
+        }
+        tree[0] = s;
+        return e;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Return a sequential stream of the merged elements.
+     */
+    public Stream<E> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED), false);
+    }
+
+    /**
+     * Play the matches of every node, from the leaves up. The leaf of source s
+     * is node k + s, and the parent of node n is node n / 2.
+     */
+    private void build() {
+        if (k == 0) {
+            return;
+        }
+        int[] winners = new int[2 * k];
+        for (int s = 0; s < k; ++s) {
+            winners[k + s] = s;
+        }
+        for (int n = k - 1; 0 < n; --n) {
+            int a = winners[2 * n];
+            int b = winners[2 * n + 1];
+            if (beats(a, b)) {
+                winners[n] = a;
+                tree[n] = b;
+            }
+            else {
+                winners[n] = b;
+                tree[n] = a;
+            }
+        }
+        tree[0] = winners[1];
+    }
+
+    /**
+     * Return true if the head of source a is yielded before the head of
+     * source b. A source that is done loses to every other.
+     */
+    @SuppressWarnings("unchecked")
+    private boolean beats(int a, int b) {
+        if (done[a] || done[b]) {
+            return done[b] && (!done[a] || a < b);
+        }
+        if (key != null) {
+            return keys[a] < keys[b] || (keys[a] == keys[b] && a < b);
+        }
+        int c = cmp.compare((E) heads[a], (E) heads[b]);
+        return c < 0 || (c == 0 && a < b);
+    }
+
+    private void read(int s) {
+        if (sources[s].hasNext()) {
+            E e = sources[s].next();
+            heads[s] = e;
+            if (key != null) {
+                keys[s] = key.get(e);
+            }
+        }
+        else {
+            heads[s] = null;
+            done[s] = true;
+        }
+    }
+}
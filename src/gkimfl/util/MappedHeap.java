@@ -0,0 +1,431 @@
+package gkimfl.util;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Single ended priority queue implemented as a heap of fixed width records in
+ * a memory mapped file.
+ *
+ * The heap array lives in the file itself, so reopening the file restores the
+ * queue in O(1) time without reading or ordering the elements. Elements are
+ * encoded as records by a {@link RecordCodec}, which also orders the records
+ * in place. The time bounds are the same as for {@link Heap}. The file and the
+ * buffers given to the codec are big endian, whatever the native byte order,
+ * so a heap file may be moved between machines.
+ *
+ * Each operation that modifies the heap first appends the previous contents of
+ * every record it overwrites to a small journal file, also memory mapped, and
+ * marks the journal complete when the operation is finished. If the process
+ * dies in the middle of an operation, opening the file again replays the
+ * journal backwards, which takes O(log(N)) time, and the queue is restored to
+ * its state before that operation. This protects against process crashes,
+ * since the operating system writes back the mapped pages of a dead process.
+ * To protect against a crash of the whole system, call {@link #sync()} to
+ * force the file and journal to storage; the queue is then durable until the
+ * next modification.
+ *
+ * Positions of elements are not tracked. Elements are decoded into new objects
+ * on every read, so a {@link MutableInt} that keeps positions in the caller's
+ * objects would never see them. Instead, {@link #removeElem} searches the file
+ * for a record with the same bytes as the encoded element.
+ *
+ * @author Allen Hubbe
+ *
+ * @param <E>
+ *            - the type of elements held in this collection
+ */
+public class MappedHeap<E> extends AbstractQueue<E> implements Closeable {
+    private static final long MAGIC = 0x474B484541503031L; // "GKHEAP01"
+    static final int HEADER = 64;
+    static final int H_MAGIC = 0;
+    static final int H_WIDTH = 8;
+    static final int H_SIZE = 12;
+
+    static final int J_STATE = 0;
+    static final int J_SIZE = 4;
+    static final int J_COUNT = 8;
+    static final int J_ENTRIES = 16;
+    static final int J_IDLE = 0;
+    static final int J_ACTIVE = 1;
+    static final int J_CAPACITY = 2 * 32 + 8;
+
+    private static final int CHUNK_BYTES = 1 << 24;
+
+    private final RecordCodec<E> codec;
+    private final int width;
+    private final int chunkShift;
+    private final int chunkMask;
+    private final ByteBuffer hold;
+    private final ByteBuffer probe;
+    private final RandomAccessFile dataFile;
+    private final RandomAccessFile journalFile;
+    private final FileChannel data;
+    private final MappedByteBuffer header;
+    private final MappedByteBuffer journal;
+    private MappedByteBuffer[] chunks;
+    private long capacity;
+    private int size;
+    private int journalCount;
+
+    public MappedHeap(File file, RecordCodec<E> codec) throws IOException {
+        this.codec = codec;
+        width = codec.width();
+        chunkShift = 31 - Integer.numberOfLeadingZeros(Math.max(1, CHUNK_BYTES / width));
+        chunkMask = (1 << chunkShift) - 1;
+        hold = ByteBuffer.allocate(width).order(ByteOrder.BIG_ENDIAN);
+        probe = ByteBuffer.allocate(width).order(ByteOrder.BIG_ENDIAN);
+        chunks = new MappedByteBuffer[0];
+
+        dataFile = new RandomAccessFile(file, "rw");
+        journalFile = new RandomAccessFile(file.getPath() + ".journal", "rw");
+        try {
+            data = dataFile.getChannel();
+            header = map(data, 0, HEADER);
+            journal = map(journalFile.getChannel(), 0,
+                    J_ENTRIES + J_CAPACITY * (4 + width));
+            if (header.getLong(H_MAGIC) == 0) {
+                header.putInt(H_WIDTH, width);
+                header.putInt(H_SIZE, 0);
+                header.putLong(H_MAGIC, MAGIC);
+                journal.putInt(J_STATE, J_IDLE);
+            }
+            else if (header.getLong(H_MAGIC) != MAGIC) {
+                throw new IOException(file + " is not a heap file");
+            }
+            else if (header.getInt(H_WIDTH) != width) {
+                throw new IOException(file + " has records of width "
+                        + header.getInt(H_WIDTH));
+            }
+            recover();
+            size = header.getInt(H_SIZE);
+            ensureCapacity(size);
+        }
+        catch (IOException e) {
+            dataFile.close();
+            journalFile.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Force the heap and journal to storage.
+     */
+    public void sync() {
+        for (MappedByteBuffer chunk : chunks) {
+            chunk.force();
+        }
+        journal.force();
+        header.force();
+    }
+
+    /**
+     * Force the heap to storage and close the files.
+     */
+    @Override
+    public void close() throws IOException {
+        sync();
+        dataFile.close();
+        journalFile.close();
+    }
+
+    @Override
+    public void clear() {
+        begin();
+        size = 0;
+        commit();
+    }
+
+    /**
+     * Remove an element whose record has the same bytes as the record of e.
+     * This searches the file for the record, and takes O(N) time.
+     */
+    @Override
+    public boolean removeElem(E e) {
+        codec.encode(e, probe, 0);
+        int i = find();
+        if (i < 0) {
+            return false;
+        }
+        begin();
+        int iBound = --size;
+        if (i != iBound) {
+            load(iBound);
+            if (pullUp(i) == i) {
+                pushDown(i);
+            }
+        }
+        commit();
+        return true;
+    }
+
+    @Override
+    public boolean offer(E e) {
+        ensureCapacity(size + 1);
+        codec.encode(e, hold, 0);
+        begin();
+        pullUp(size++);
+        commit();
+        return true;
+    }
+
+    @Override
+    public E peek() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return decode(0);
+    }
+
+    @Override
+    public E poll() {
+        E elem = peek();
+        begin();
+        int i = --size;
+        if (i != 0) {
+            load(i);
+            pushDown(0);
+        }
+        commit();
+        return elem;
+    }
+
+    /**
+     * Return an iterator for the elements. This iterator does not yield
+     * elements in sorted order.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            int i = 0;
+
+            @Override
+            public boolean hasNext() {
+                return i < size;
+            }
+
+            @Override
+            public E next() {
+                if (size <= i) {
+                    throw new NoSuchElementException();
+                }
+                E e = decode(i);
+                ++i;
+                return e;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long offset, int length)
+            throws IOException {
+        MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_WRITE,
+                offset, length);
+        buf.order(ByteOrder.BIG_ENDIAN);
+        return buf;
+    }
+
+    /**
+     * Return the position of a record with the same bytes as the probe record,
+     * or -1 if there is none.
+     */
+    private int find() {
+        for (int i = 0; i < size; ++i) {
+            ByteBuffer chunk = chunk(i);
+            int offset = offset(i);
+            int b = 0;
+            while (b < width && chunk.get(offset + b) == probe.get(b)) {
+                ++b;
+            }
+            if (b == width) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void ensureCapacity(int minCapacity) {
+        if (capacity < minCapacity) {
+            int nChunks = ((minCapacity - 1) >>> chunkShift) + 1;
+            int iChunk = chunks.length;
+            long chunkBytes = (long) width << chunkShift;
+            chunks = Arrays.copyOf(chunks, nChunks);
+            try {
+                for (; iChunk < nChunks; ++iChunk) {
+                    chunks[iChunk] = map(data, HEADER + iChunk * chunkBytes,
+                            (int) chunkBytes);
+                }
+            }
+            catch (IOException e) {
+                chunks = Arrays.copyOf(chunks, iChunk);
+                throw new IllegalStateException(e);
+            }
+            capacity = (long) nChunks << chunkShift;
+        }
+    }
+
+    /**
+     * Undo the operation in progress, if the journal shows that an operation
+     * did not complete.
+     */
+    private void recover() {
+        if (journal.getInt(J_STATE) == J_ACTIVE) {
+            for (int k = journal.getInt(J_COUNT) - 1; 0 <= k; --k) {
+                int entry = J_ENTRIES + k * (4 + width);
+                int i = journal.getInt(entry);
+                ensureCapacity(i + 1);
+                chunk(i).put(offset(i), journal, entry + 4, width);
+            }
+            header.putInt(H_SIZE, journal.getInt(J_SIZE));
+            journal.putInt(J_STATE, J_IDLE);
+        }
+    }
+
+    /**
+     * Start journaling an operation.
+     */
+    private void begin() {
+        journalCount = 0;
+        journal.putInt(J_COUNT, 0);
+        journal.putInt(J_SIZE, header.getInt(H_SIZE));
+        journal.putInt(J_STATE, J_ACTIVE);
+    }
+
+    /**
+     * Record the size of the heap, and mark the operation complete.
+     */
+    private void commit() {
+        header.putInt(H_SIZE, size);
+        journal.putInt(J_STATE, J_IDLE);
+    }
+
+    /**
+     * Append the contents of the record at position i to the journal, before
+     * it is overwritten.
+     */
+    private void journal(int i) {
+        int k = journalCount++;
+        if (J_CAPACITY <= k) {
+            throw new IllegalStateException();
+        }
+        int entry = J_ENTRIES + k * (4 + width);
+        journal.putInt(entry, i);
+        journal.put(entry + 4, chunk(i), offset(i), width);
+        journal.putInt(J_COUNT, journalCount);
+    }
+
+    private ByteBuffer chunk(int i) {
+        return chunks[i >>> chunkShift];
+    }
+
+    private int offset(int i) {
+        return (i & chunkMask) * width;
+    }
+
+    private E decode(int i) {
+        return codec.decode(chunk(i), offset(i));
+    }
+
+    /**
+     * Copy the record at position i to the held record.
+     */
+    private void load(int i) {
+        hold.put(0, chunk(i), offset(i), width);
+    }
+
+    /**
+     * Copy the held record to position i.
+     */
+    private void store(int i) {
+        journal(i);
+        chunk(i).put(offset(i), hold, 0, width);
+    }
+
+    /**
+     * Copy the record at position iFrom to position iTo.
+     */
+    private void copy(int iFrom, int iTo) {
+        journal(iTo);
+        chunk(iTo).put(offset(iTo), chunk(iFrom), offset(iFrom), width);
+    }
+
+    /**
+     * Return true if the held record should be ordered prior to the record at
+     * i.
+     */
+    private boolean heldLess(int i) {
+        return codec.compare(hold, 0, chunk(i), offset(i)) < 0;
+    }
+
+    /**
+     * Return true if the record at i should be ordered prior to the held
+     * record.
+     */
+    private boolean lessHeld(int i) {
+        return codec.compare(chunk(i), offset(i), hold, 0) < 0;
+    }
+
+    private boolean lessAt(int iA, int iB) {
+        return codec.compare(chunk(iA), offset(iA), chunk(iB), offset(iB)) < 0;
+    }
+
+    /**
+     * Place the held record in the hole at position i, pulling it up until it
+     * satisfies the heap invariant.
+     */
+    private int pullUp(int i) {
+        while (0 < i) {
+            int iUp = (i - 1) >> 1;
+            if (!heldLess(iUp)) {
+                break;
+            }
+            copy(iUp, i);
+            i = iUp;
+        }
+        store(i);
+        return i;
+    }
+
+    /**
+     * Place the held record in the hole at position i, pushing it down until
+     * it satisfies the heap invariant.
+     */
+    private int pushDown(int i) {
+        int iBound = size;
+        while (true) {
+            int iDown = (i << 1) + 1;
+            if (iBound <= iDown) {
+                break;
+            }
+            int iRight = iDown + 1;
+            if (iRight < iBound && lessAt(iRight, iDown)) {
+                iDown = iRight;
+            }
+            if (!lessHeld(iDown)) {
+                break;
+            }
+            copy(iDown, i);
+            i = iDown;
+        }
+        store(i);
+        return i;
+    }
+}
@@ -0,0 +1,242 @@
+package gkimfl.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Relaxed thread safe priority queue built from many independent heaps.
+ *
+ * This is the MultiQueue design of Rihani, Sanders and Dementiev. Elements
+ * are kept in several {@link Heap} shards, each behind its own lock. An
+ * insertion locks a shard chosen at random. A removal looks at the first
+ * elements of two shards chosen at random, and removes the better of the two.
+ * Shards are only ever locked with tryLock, so a thread that finds a shard
+ * busy simply picks another one, and threads rarely wait for each other. A
+ * removal that loses a shard to another thread spins briefly before it picks
+ * again.
+ *
+ * The queue is relaxed: poll does not always return the first element, only
+ * one that is close to first. With k shards, the expected rank of the polled
+ * element among all elements in the queue is O(k), independent of the number
+ * of elements. A few shards per thread keeps contention low while bounding
+ * the rank error.
+ *
+ * The size is the sum of per thread counters, and is exact only when no
+ * operations are in progress. Each count changes while its shard is locked,
+ * so an element is always counted before it can be removed, but the sum may
+ * still read counters at different times, so size and isEmpty are only hints
+ * under concurrency. Poll returns null only if every shard was seen
+ * empty.
+ *
+ * @author Allen Hubbe
+ *
+ * @param <E>
+ *            - the type of elements held in this collection
+ */
+public class MultiQueue<E> extends AbstractQueue<E> {
+    static class Shard<E> extends ReentrantLock {
+        private static final long serialVersionUID = 1L;
+        final Heap<E> heap;
+        volatile E first;
+
+        Shard(Comparator<E> comparator) {
+            heap = new Heap<E>(comparator);
+        }
+    }
+
+    private final Comparator<E> cmp;
+    private final Shard<E>[] shards;
+    private final LongAdder count = new LongAdder();
+
+    public MultiQueue() {
+        this(2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    public MultiQueue(Comparator<E> comparator) {
+        this(2 * Runtime.getRuntime().availableProcessors(), comparator);
+    }
+
+    public MultiQueue(int shardCount) {
+        this(shardCount, new NaturalComparator<E>());
+    }
+
+    @SuppressWarnings("unchecked")
+    public MultiQueue(int shardCount, Comparator<E> comparator) {
+        cmp = comparator;
+        shards = (Shard<E>[]) new Shard<?>[Math.max(2, shardCount)];
+        for (int i = 0; i < shards.length; ++i) {
+            shards[i] = new Shard<E>(comparator);
+        }
+    }
+
+    /**
+     * Remove all elements from the queue.
+     */
+    @Override
+    public void clear() {
+        for (Shard<E> shard : shards) {
+            shard.lock();
+            try {
+                count.add(-shard.heap.size());
+                shard.heap.clear();
+                shard.first = null;
+            }
+            finally {
+                shard.unlock();
+            }
+        }
+    }
+
+    /**
+     * Insert an element into a random shard.
+     */
+    @Override
+    public boolean offer(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        ThreadLocalRandom rand = ThreadLocalRandom.current();
+        while (true) {
+            Shard<E> shard = shards[rand.nextInt(shards.length)];
+            if (shard.tryLock()) {
+                try {
+                    shard.heap.offer(e);
+                    shard.first = shard.heap.peek();
+                    // count before unlocking, so no poll of e is counted first
+                    count.increment();
+                }
+                finally {
+                    shard.unlock();
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Return the first element of all the shards, or null if the queue is
+     * empty. This looks at every shard, but does not lock them, so the result
+     * may already be stale.
+     */
+    @Override
+    public E peek() {
+        E best = null;
+        for (Shard<E> shard : shards) {
+            E e = shard.first;
+            if (e != null && (best == null || less(e, best))) {
+                best = e;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Remove and return the better of the first elements of two random
+     * shards, or return null if the queue is empty.
+     */
+    @Override
+    public E poll() {
+        ThreadLocalRandom rand = ThreadLocalRandom.current();
+        while (true) {
+            Shard<E> shard = shards[rand.nextInt(shards.length)];
+            Shard<E> other = shards[rand.nextInt(shards.length)];
+            E e = shard.first;
+            E eOther = other.first;
+            if (e == null || eOther != null && less(eOther, e)) {
+                shard = other;
+                e = eOther;
+            }
+            if (e == null) {
+                shard = nonEmpty();
+                if (shard == null) {
+                    return null;
+                }
+            }
+            if (shard.tryLock()) {
+                try {
+                    if (!shard.heap.isEmpty()) {
+                        e = shard.heap.poll();
+                        shard.first = shard.heap.isEmpty() ? null : shard.heap.peek();
+                        count.decrement();
+                        return e;
+                    }
+                }
+                finally {
+                    shard.unlock();
+                }
+            }
+            // another thread holds or just emptied the shard, so back off
+            // before picking again
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Removing arbitrary elements is not supported.
+     */
+    @Override
+    public boolean removeElem(E e) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Return an iterator over a snapshot of the elements of each shard in
+     * turn. This iterator does not yield elements in sorted order.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        ArrayList<E> snapshot = new ArrayList<E>();
+        for (Shard<E> shard : shards) {
+            shard.lock();
+            try {
+                snapshot.addAll(shard.heap);
+            }
+            finally {
+                shard.unlock();
+            }
+        }
+        return snapshot.iterator();
+    }
+
+    /**
+     * Return the number of elements in the queue. While operations are in
+     * progress, this is only an estimate, and is never negative.
+     */
+    @Override
+    public int size() {
+        return (int) Math.max(0, count.sum());
+    }
+
+    /**
+     * Return true if the queue appears to be empty. While operations are in
+     * progress, this is only a hint; use the result of poll to tell whether
+     * an element was removed.
+     */
+    @Override
+    public boolean isEmpty() {
+        return count.sum() <= 0;
+    }
+
+    private boolean less(E vA, E vB) {
+        return cmp.compare(vA, vB) < 0;
+    }
+
+    /**
+     * Return any shard that appears to be non empty, or null if all shards
+     * appear to be empty.
+     */
+    private Shard<E> nonEmpty() {
+        int start = ThreadLocalRandom.current().nextInt(shards.length);
+        for (int i = 0; i < shards.length; ++i) {
+            Shard<E> shard = shards[(start + i) % shards.length];
+            if (shard.first != null) {
+                return shard;
+            }
+        }
+        return null;
+    }
+}
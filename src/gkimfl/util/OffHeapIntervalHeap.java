@@ -0,0 +1,495 @@
+package gkimfl.util;
+
+import static java.lang.Math.log;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Double ended priority queue implemented as an interval heap of fixed width
+ * records stored outside of the Java heap.
+ *
+ * This collection has the same layout and the same time bounds as
+ * {@link IntervalHeap}: a min heap in the even record indices, and a max heap
+ * in the odd record indices. Instead of holding references to elements, each
+ * element is encoded by a {@link RecordCodec} into a record in direct byte
+ * buffers, and records are compared in place by the codec. The garbage
+ * collector never has to mark or copy the contents of the queue, only the
+ * handful of buffer objects that hold it.
+ *
+ * Records are stored in chunks of a fixed number of records, each chunk being
+ * one direct buffer. Growing the queue allocates another chunk and never
+ * copies existing records, so the total size of the queue may exceed the 2GB
+ * limit of a single buffer. Record positions are long, so the number of
+ * records is limited only by memory; {@link #size()} saturates at
+ * Integer.MAX_VALUE, and {@link #longSize()} returns the exact count. Elements
+ * are decoded into new objects when they are returned from the queue.
+ *
+ * @author Allen Hubbe
+ *
+ * @param <E>
+ *            - the type of elements held in this collection
+ */
+public class OffHeapIntervalHeap<E> extends AbstractDequeue<E> {
+    private static final int CHUNK_BYTES = 1 << 24;
+
+    private final RecordCodec<E> codec;
+    private final int width;
+    private final int chunkShift;
+    private final int chunkMask;
+    private final ByteBuffer hold;
+    ByteBuffer[] chunks;
+    private long capacity;
+    long size;
+
+    public OffHeapIntervalHeap(RecordCodec<E> codec) {
+        this(0, codec);
+    }
+
+    public OffHeapIntervalHeap(Collection<? extends E> c, RecordCodec<E> codec) {
+        this(c.size(), codec);
+        for (E e : c) {
+            codec.encode(e, chunk(size), offset(size));
+            ++size;
+        }
+        heapify();
+    }
+
+    public OffHeapIntervalHeap(int initialCapacity, RecordCodec<E> codec) {
+        this(initialCapacity, codec, 31 - Integer
+                .numberOfLeadingZeros(Math.max(1, CHUNK_BYTES / codec.width())));
+    }
+
+    OffHeapIntervalHeap(int initialCapacity, RecordCodec<E> codec, int chunkShift) {
+        this.codec = codec;
+        this.width = codec.width();
+        this.chunkShift = chunkShift;
+        this.chunkMask = (1 << chunkShift) - 1;
+        hold = allocate(1);
+        chunks = new ByteBuffer[0];
+        ensureCapacity(initialCapacity);
+    }
+
+    /**
+     * Remove all elements from the heap, and release the off heap storage. The
+     * memory of a direct buffer is freed when the garbage collector collects
+     * the buffer, so this drops every reference to the chunks; inserting again
+     * allocates new chunks.
+     */
+    @Override
+    public void clear() {
+        size = 0;
+        chunks = new ByteBuffer[0];
+        capacity = 0;
+    }
+
+    /**
+     * Return true if the heap is empty.
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Return an iterator for the elements. This iterator does not yield
+     * elements in sorted order.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            long i = 0;
+
+            @Override
+            public boolean hasNext() {
+                return i < size;
+            }
+
+            @Override
+            public E next() {
+                if (size <= i) {
+                    throw new NoSuchElementException();
+                }
+                E e = decode(i);
+                ++i;
+                return e;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * Insert several elements into the heap. If the number of elements to be
+     * added is large, this may call heapify for efficiency instead of adding
+     * the elements one at a time.
+     */
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+        int cSize = c.size();
+        long nSize = cSize + size;
+        ensureCapacity(nSize);
+        if (nSize <= cSize * log(nSize) / log(2)) {
+            for (E e : c) {
+                codec.encode(e, chunk(size), offset(size));
+                ++size;
+            }
+            heapify();
+            return true;
+        }
+        else {
+            return super.addAll(c);
+        }
+    }
+
+    /**
+     * Insert an element into the heap.
+     */
+    @Override
+    public boolean offer(E e) {
+        long i = size;
+        ensureCapacity(i + 1);
+        codec.encode(e, chunk(i), offset(i));
+        size = i + 1;
+        if ((i & 1) == 0) {
+            pullUpMax(i);
+            pullUpMin(i);
+        }
+        else {
+            pullUpMax(i);
+            if (lessAt(i, i - 1)) {
+                swap(i, i - 1);
+                pullUpMin(i - 1);
+                pullUpMax(i);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Return the minimum element.
+     */
+    @Override
+    public E peekFirst() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return decode(0);
+    }
+
+    /**
+     * Return the maximum element.
+     */
+    @Override
+    public E peekLast() {
+        if (size < 2) {
+            return peekFirst();
+        }
+        return decode(1);
+    }
+
+    /**
+     * Return and remove the minimum element.
+     */
+    @Override
+    public E pollFirst() {
+        E e = peekFirst();
+        long iBound = size - 1;
+        size = iBound;
+        if (0 < iBound) {
+            copy(iBound, 0);
+            long i = pushDownMin(0);
+            if (i + 1 == iBound) {
+                pullUpMax(i);
+            }
+            else if (i + 1 < iBound && lessAt(i + 1, i)) {
+                // i is a leaf of the min heap
+                swap(i + 1, i);
+                pullUpMax(i + 1);
+            }
+        }
+        return e;
+    }
+
+    /**
+     * Return and remove the maximum element.
+     */
+    @Override
+    public E pollLast() {
+        E e = peekLast();
+        long iBound = size - 1;
+        size = iBound;
+        if (1 < iBound) {
+            copy(iBound, 1);
+            long i = pushDownMax(1);
+            if ((i & 1) == 0) {
+                pullUpMin(i);
+            }
+            else if (lessAt(i, i - 1)) {
+                // i is a leaf of the max heap
+                swap(i, i - 1);
+                pullUpMin(i - 1);
+            }
+        }
+        return e;
+    }
+
+    /**
+     * Removing arbitrary elements is not supported.
+     */
+    @Override
+    public boolean removeElem(E e) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Return the number of elements in the heap, or Integer.MAX_VALUE if there
+     * are more than that.
+     */
+    @Override
+    public int size() {
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Return the number of elements in the heap, which may exceed
+     * Integer.MAX_VALUE.
+     */
+    public long longSize() {
+        return size;
+    }
+
+    /**
+     * Allocate off heap storage, if necessary, to hold at least minCapacity
+     * elements.
+     */
+    public void ensureCapacity(long minCapacity) {
+        if (capacity < minCapacity) {
+            int nChunks = (int) ((minCapacity - 1) >>> chunkShift) + 1;
+            int iChunk = chunks.length;
+            chunks = Arrays.copyOf(chunks, nChunks);
+            for (; iChunk < nChunks; ++iChunk) {
+                chunks[iChunk] = allocate(chunkMask + 1);
+            }
+            capacity = (long) nChunks << chunkShift;
+        }
+    }
+
+    private ByteBuffer allocate(int records) {
+        return ByteBuffer.allocateDirect(records * width).order(ByteOrder.nativeOrder());
+    }
+
+    private ByteBuffer chunk(long i) {
+        return chunks[(int) (i >>> chunkShift)];
+    }
+
+    private int offset(long i) {
+        return (int) (i & chunkMask) * width;
+    }
+
+    private E decode(long i) {
+        return codec.decode(chunk(i), offset(i));
+    }
+
+    /**
+     * Copy the record at position iFrom to position iTo.
+     */
+    private void copy(long iFrom, long iTo) {
+        chunk(iTo).put(offset(iTo), chunk(iFrom), offset(iFrom), width);
+    }
+
+    /**
+     * Copy the record at position i to the held record.
+     */
+    private void load(long i) {
+        hold.put(0, chunk(i), offset(i), width);
+    }
+
+    /**
+     * Copy the held record to position i.
+     */
+    private void store(long i) {
+        chunk(i).put(offset(i), hold, 0, width);
+    }
+
+    private void swap(long iA, long iB) {
+        load(iA);
+        copy(iB, iA);
+        store(iB);
+    }
+
+    /**
+     * Return true if the record at iA should be ordered prior to the record at
+     * iB.
+     */
+    private boolean lessAt(long iA, long iB) {
+        return codec.compare(chunk(iA), offset(iA), chunk(iB), offset(iB)) < 0;
+    }
+
+    /**
+     * Return true if the held record should be ordered prior to the record at
+     * i.
+     */
+    private boolean heldLess(long i) {
+        return codec.compare(hold, 0, chunk(i), offset(i)) < 0;
+    }
+
+    /**
+     * Return true if the record at i should be ordered prior to the held
+     * record.
+     */
+    private boolean lessHeld(long i) {
+        return codec.compare(chunk(i), offset(i), hold, 0) < 0;
+    }
+
+    /**
+     * Efficiently order records into heap in O(N) time. See
+     * {@link IntervalHeap} for a description of the algorithm.
+     */
+    private void heapify() {
+        long iBound = size;
+        for (long i = iBound - 1; 0 <= i; --i) {
+            if ((i & 1) == 0) {
+                long j = pushDownMin(i);
+                if (j + 1 == iBound) {
+                    pullUpMax(j, i + 1);
+                }
+                else if (j + 1 < iBound && lessAt(j + 1, j)) {
+                    swap(j + 1, j);
+                    pullUpMin(j, i);
+                    pullUpMax(j + 1, i + 1);
+                }
+            }
+            else {
+                if (lessAt(i, i - 1)) {
+                    swap(i, i - 1);
+                }
+
+                long j = pushDownMax(i);
+                if ((j & 1) == 0) {
+                    pullUpMin(j, i + 1);
+                }
+                else if (i < j && lessAt(j, j - 1)) {
+                    swap(j, j - 1);
+                    pullUpMax(j, i);
+                    pullUpMin(j - 1, i + 1);
+                }
+            }
+        }
+    }
+
+    private long pullUpMax(long i) {
+        return pullUpMax(i, 1);
+    }
+
+    private long pullUpMin(long i) {
+        return pullUpMin(i, 0);
+    }
+
+    /**
+     * Pull a record at position i up in the max heap until it satisfies the
+     * max heap invariant, but do not consider ancestors before position base.
+     */
+    private long pullUpMax(long i, long base) {
+        load(i);
+        while (base < i) {
+            long iUp = ((i >> 1) - 1) | 1;
+            if (iUp < base || !lessHeld(iUp)) {
+                break;
+            }
+            copy(iUp, i);
+            i = iUp;
+        }
+        store(i);
+        return i;
+    }
+
+    /**
+     * Pull a record at position i up in the min heap until it satisfies the
+     * min heap invariant, but do not consider ancestors before position base.
+     */
+    private long pullUpMin(long i, long base) {
+        load(i);
+        while (base < i) {
+            long iUp = ((i >> 1) - 1) & ~1;
+            if (iUp < base || !heldLess(iUp)) {
+                break;
+            }
+            copy(iUp, i);
+            i = iUp;
+        }
+        store(i);
+        return i;
+    }
+
+    /**
+     * Push a record at position i down in the max heap until it satisfies the
+     * max heap invariant. The resulting position is normally in the max heap,
+     * but may be in the min heap if it is a leaf representing an empty
+     * interval.
+     */
+    private long pushDownMax(long i) {
+        long iBound = size;
+        load(i);
+        while (true) {
+            long iDown = (i << 1) + 1;
+            if (iBound < iDown) {
+                break;
+            }
+            if (iDown == iBound) {
+                iDown = iBound - 1;
+            }
+            else {
+                long iRight = iDown + 2;
+                if (iRight <= iBound) {
+                    if (iRight == iBound) {
+                        iRight = iBound - 1;
+                    }
+                    if (lessAt(iDown, iRight)) {
+                        iDown = iRight;
+                    }
+                }
+            }
+            if (!heldLess(iDown)) {
+                break;
+            }
+            copy(iDown, i);
+            i = iDown;
+        }
+        store(i);
+        return i;
+    }
+
+    /**
+     * Push a record at position i down in the min heap until it satisfies the
+     * min heap invariant. The resulting position will be in the min heap.
+     */
+    private long pushDownMin(long i) {
+        long iBound = size;
+        load(i);
+        while (true) {
+            long iDown = (i << 1) + 2;
+            if (iBound <= iDown) {
+                break;
+            }
+            long iRight = iDown + 2;
+            if (iRight < iBound && lessAt(iRight, iDown)) {
+                iDown = iRight;
+            }
+            if (!lessHeld(iDown)) {
+                break;
+            }
+            copy(iDown, i);
+            i = iDown;
+        }
+        store(i);
+        return i;
+    }
+}
@@ -0,0 +1,551 @@
+package gkimfl.util;
+
+import static java.lang.Math.log;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Double ended priority queue implemented as an interval heap with a page
+ * blocked memory layout.
+ *
+ * This collection has the same time bounds and the same algorithm as
+ * {@link IntervalHeap}, and differs only in where each interval is stored.
+ * IntervalHeap stores the intervals of its implicit tree in breadth first
+ * order, so beyond the first few levels, every level of a path from the root
+ * to a leaf is on a different memory page. This heap instead stores the tree
+ * as a tree of pages, in the manner of the B-heap of Poul-Henning Kamp. Each
+ * page holds a complete subtree of several levels, and the pages themselves
+ * are laid out in breadth first order. A path from the root to a leaf then
+ * touches one page for every few levels, instead of one page for every level,
+ * which saves cache and TLB misses when the heap is much larger than the
+ * cache.
+ *
+ * The pages are logical blocks of the backing array, not pages of the
+ * operating system. The array begins with an object header, and the garbage
+ * collector may move it, so a logical page usually straddles two memory
+ * pages. A path still touches at most two memory pages for each logical page,
+ * which keeps most of the benefit, but the exact savings depend on the
+ * placement of the array.
+ *
+ * The heap is still addressed by the same positions as IntervalHeap: a min
+ * heap in the even positions, and a max heap in the odd positions. Only the
+ * mapping from positions to array indices changes. With p levels per page,
+ * each page holds 2^p - 1 intervals in 2^p array slots, the first one unused.
+ * The last levels of the tree, which do not fill a page of p levels, are
+ * grouped into smaller pages of just the levels that exist. The layout
+ * therefore depends on the depth of the tree, and the array is laid out again
+ * when the tree grows a level, which like growing a list takes amortized O(1)
+ * time per element.
+ *
+ * @author Allen Hubbe
+ *
+ * @param <E>
+ *            - the type of elements held in this collection
+ */
+public class PagedIntervalHeap<E> extends AbstractDequeue<E> {
+    /**
+     * Levels per page, so that a page of intervals with 4 byte references is
+     * 4KB in size, the size of a common memory page.
+     */
+    public static final int DEFAULT_PAGE_LEVELS = 9;
+
+    private final Comparator<E> cmp;
+    private final int pageLevels;
+    private Object[] queue;
+    int size;
+    private int depth;
+    int capacity;
+    private final int[] pageBase = new int[32];
+    private final int[] pageRoot = new int[32];
+    private final int[] pageShift = new int[32];
+
+    public PagedIntervalHeap() {
+        this(0, new NaturalComparator<E>(), DEFAULT_PAGE_LEVELS);
+    }
+
+    public PagedIntervalHeap(Comparator<E> comparator) {
+        this(0, comparator, DEFAULT_PAGE_LEVELS);
+    }
+
+    public PagedIntervalHeap(Collection<? extends E> c) {
+        this(c, new NaturalComparator<E>());
+    }
+
+    public PagedIntervalHeap(Collection<? extends E> c, Comparator<E> comparator) {
+        this(c.size(), comparator, DEFAULT_PAGE_LEVELS);
+        for (E e : c) {
+            set(size++, e);
+        }
+        heapify();
+    }
+
+    public PagedIntervalHeap(int initialCapacity) {
+        this(initialCapacity, new NaturalComparator<E>(), DEFAULT_PAGE_LEVELS);
+    }
+
+    public PagedIntervalHeap(int initialCapacity, Comparator<E> comparator) {
+        this(initialCapacity, comparator, DEFAULT_PAGE_LEVELS);
+    }
+
+    /**
+     * Create a heap with pages of the given number of levels of the tree.
+     */
+    public PagedIntervalHeap(int initialCapacity, Comparator<E> comparator, int pageLevels) {
+        if (pageLevels < 1 || 30 < pageLevels) {
+            throw new IllegalArgumentException();
+        }
+        this.cmp = comparator;
+        this.pageLevels = pageLevels;
+        queue = new Object[0];
+        ensureCapacity(initialCapacity);
+    }
+
+    /**
+     * Remove all elements from the heap.
+     */
+    @Override
+    public void clear() {
+        for (int i = 0; i < size; ++i) {
+            set(i, null);
+        }
+        size = 0;
+    }
+
+    /**
+     * Return true if the heap is empty.
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Return an iterator for the elements. This iterator does not yield
+     * elements in sorted order.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            int i = 0;
+
+            @Override
+            public boolean hasNext() {
+                return i < size;
+            }
+
+            @Override
+            public E next() {
+                if (size <= i) {
+                    throw new NoSuchElementException();
+                }
+                return get(i++);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * Insert several elements into the heap. If the number of elements to be
+     * added is large, this may call heapify for efficiency instead of adding
+     * the elements one at a time.
+     */
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+        int cSize = c.size();
+        int nSize = cSize + size;
+        if (nSize <= cSize * log(nSize) / log(2)) {
+            ensureCapacity(nSize);
+            for (E e : c) {
+                set(size++, e);
+            }
+            heapify();
+            return true;
+        }
+        else {
+            return super.addAll(c);
+        }
+    }
+
+    /**
+     * Insert an element into the heap.
+     */
+    @Override
+    public boolean offer(E e) {
+        int i = size;
+        ensureCapacity(i + 1);
+        set(i, e);
+        size = i + 1;
+        if ((i & 1) == 0) {
+            pullUpMax(i);
+            pullUpMin(i);
+        }
+        else {
+            pullUpMax(i);
+            if (lessAt(i, i - 1)) {
+                swap(i, i - 1);
+                pullUpMin(i - 1);
+                pullUpMax(i);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Return the minimum element.
+     */
+    @Override
+    public E peekFirst() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return get(0);
+    }
+
+    /**
+     * Return the maximum element.
+     */
+    @Override
+    public E peekLast() {
+        if (size < 2) {
+            return peekFirst();
+        }
+        return get(1);
+    }
+
+    /**
+     * Return and remove the minimum element.
+     */
+    @Override
+    public E pollFirst() {
+        E e = peekFirst();
+        int iBound = --size;
+        set(0, get(iBound));
+        set(iBound, null);
+        if (0 < iBound) {
+            int i = pushDownMin(0);
+            if (i + 1 == iBound) {
+                pullUpMax(i);
+            }
+            else if (i + 1 < iBound && lessAt(i + 1, i)) {
+                // i is a leaf of the min heap
+                swap(i + 1, i);
+                pullUpMax(i + 1);
+            }
+        }
+        return e;
+    }
+
+    /**
+     * Return and remove the maximum element.
+     */
+    @Override
+    public E pollLast() {
+        if (size < 2) {
+            return pollFirst();
+        }
+        E e = get(1);
+        int iBound = --size;
+        set(1, get(iBound));
+        set(iBound, null);
+        if (1 < iBound) {
+            int i = pushDownMax(1);
+            if ((i & 1) == 0) {
+                pullUpMin(i);
+            }
+            else if (lessAt(i, i - 1)) {
+                // i is a leaf of the max heap
+                swap(i, i - 1);
+                pullUpMin(i - 1);
+            }
+        }
+        return e;
+    }
+
+    /**
+     * Removing arbitrary elements is not supported.
+     */
+    @Override
+    public boolean removeElem(E e) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Return the number of elements in the heap.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Lay out the array for a deeper tree, if necessary, to hold at least
+     * minCapacity elements.
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (capacity < minCapacity) {
+            int newDepth = depth;
+            while ((1L << newDepth + 1) - 2 < minCapacity) {
+                ++newDepth;
+            }
+            Object[] old = queue;
+            int oldSize = size;
+            int[] oldBase = pageBase.clone();
+            int[] oldRoot = pageRoot.clone();
+            int[] oldShift = pageShift.clone();
+            layout(newDepth);
+            queue = new Object[slots(newDepth)];
+            for (int i = 0; i < oldSize; ++i) {
+                queue[index(i)] = old[index(i, oldBase, oldRoot, oldShift)];
+            }
+        }
+    }
+
+    /**
+     * Compute the page tables for a tree of the given depth.
+     */
+    private void layout(int newDepth) {
+        int base = 0;
+        for (int root = 0; root < newDepth; root += pageLevels) {
+            int shift = Math.min(pageLevels, newDepth - root);
+            for (int d = root; d < root + shift; ++d) {
+                pageBase[d] = base;
+                pageRoot[d] = root;
+                pageShift[d] = shift;
+            }
+            base += 1 << root + shift;
+        }
+        depth = newDepth;
+        capacity = (int) Math.min(Integer.MAX_VALUE, (1L << newDepth + 1) - 2);
+    }
+
+    /**
+     * Return the number of array slots for a tree of the given depth.
+     */
+    private int slots(int newDepth) {
+        long nodes = 0;
+        for (int root = 0; root < newDepth; root += pageLevels) {
+            nodes += 1L << Math.min(root + pageLevels, newDepth);
+        }
+        if (Integer.MAX_VALUE < nodes << 1) {
+            throw new OutOfMemoryError();
+        }
+        return (int) (nodes << 1);
+    }
+
+    /**
+     * Return the array index of position i.
+     */
+    int index(int i) {
+        return index(i, pageBase, pageRoot, pageShift);
+    }
+
+    private static int index(int i, int[] base, int[] root, int[] shift) {
+        int m = (i >> 1) + 1;
+        int d = 31 - Integer.numberOfLeadingZeros(m);
+        int dPage = d - root[d];
+        int page = (m >>> dPage) - (1 << root[d]);
+        int node = base[d] + (page << shift[d]) + (m & ((1 << dPage) - 1) | (1 << dPage));
+        return (node << 1) | (i & 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    E get(int i) {
+        return (E) queue[index(i)];
+    }
+
+    private void set(int i, E e) {
+        queue[index(i)] = e;
+    }
+
+    private void swap(int iA, int iB) {
+        int jA = index(iA);
+        int jB = index(iB);
+        Object e = queue[jA];
+        queue[jA] = queue[jB];
+        queue[jB] = e;
+    }
+
+    /**
+     * Return true if vA should should be ordered prior to vB.
+     */
+    private boolean less(E vA, E vB) {
+        return cmp.compare(vA, vB) < 0;
+    }
+
+    /**
+     * Return true if the value at iA should should be ordered prior to the
+     * value at iB.
+     */
+    private boolean lessAt(int iA, int iB) {
+        return less(get(iA), get(iB));
+    }
+
+    /**
+     * Efficiently order elements into heap in O(N) time. See
+     * {@link IntervalHeap} for a description of the algorithm.
+     */
+    private void heapify() {
+        int iBound = size;
+        for (int i = iBound - 1; 0 <= i; --i) {
+            if ((i & 1) == 0) {
+                int j = pushDownMin(i);
+                if (j + 1 == iBound) {
+                    pullUpMax(j, i + 1);
+                }
+                else if (j + 1 < iBound && lessAt(j + 1, j)) {
+                    swap(j + 1, j);
+                    pullUpMin(j, i);
+                    pullUpMax(j + 1, i + 1);
+                }
+            }
+            else {
+                if (lessAt(i, i - 1)) {
+                    swap(i, i - 1);
+                }
+
+                int j = pushDownMax(i);
+                if ((j & 1) == 0) {
+                    pullUpMin(j, i + 1);
+                }
+                else if (i < j && lessAt(j, j - 1)) {
+                    swap(j, j - 1);
+                    pullUpMax(j, i);
+                    pullUpMin(j - 1, i + 1);
+                }
+            }
+        }
+    }
+
+    private int pullUpMax(int i) {
+        return pullUpMax(i, 1);
+    }
+
+    private int pullUpMin(int i) {
+        return pullUpMin(i, 0);
+    }
+
+    /**
+     * Pull an element at position i up in the max heap until it satisfies the
+     * max heap invariant, but do not consider ancestors before position base.
+     */
+    private int pullUpMax(int i, int base) {
+        E v = get(i);
+        while (base < i) {
+            int iUp = ((i >> 1) - 1) | 1;
+            if (iUp < base) {
+                break;
+            }
+            E vUp = get(iUp);
+            if (!less(vUp, v)) {
+                break;
+            }
+            set(i, vUp);
+            i = iUp;
+        }
+        set(i, v);
+        return i;
+    }
+
+    /**
+     * Pull an element at position i up in the min heap until it satisfies the
+     * min heap invariant, but do not consider ancestors before position base.
+     */
+    private int pullUpMin(int i, int base) {
+        E v = get(i);
+        while (base < i) {
+            int iUp = ((i >> 1) - 1) & ~1;
+            if (iUp < base) {
+                break;
+            }
+            E vUp = get(iUp);
+            if (!less(v, vUp)) {
+                break;
+            }
+            set(i, vUp);
+            i = iUp;
+        }
+        set(i, v);
+        return i;
+    }
+
+    /**
+     * Push an element at position i down in the max heap until it satisfies the
+     * max heap invariant. The resulting position is normally in the max heap,
+     * but may be in the min heap if it is a leaf representing an empty
+     * interval.
+     */
+    private int pushDownMax(int i) {
+        int iBound = size;
+        E v = get(i);
+        while (true) {
+            int iDown = (i << 1) + 1;
+            E vDown;
+            if (iBound < iDown) {
+                break;
+            }
+            if (iDown == iBound) {
+                iDown = iBound - 1;
+                vDown = get(iDown);
+            }
+            else {
+                vDown = get(iDown);
+                int iRight = iDown + 2;
+                if (iRight <= iBound) {
+                    if (iRight == iBound) {
+                        iRight = iBound - 1;
+                    }
+                    E vRight = get(iRight);
+                    if (less(vDown, vRight)) {
+                        vDown = vRight;
+                        iDown = iRight;
+                    }
+                }
+            }
+            if (!less(v, vDown)) {
+                break;
+            }
+            set(i, vDown);
+            i = iDown;
+        }
+        set(i, v);
+        return i;
+    }
+
+    /**
+     * Push an element at position i down in the min heap until it satisfies the
+     * min heap invariant. The resulting position will be in the min heap.
+     */
+    private int pushDownMin(int i) {
+        int iBound = size;
+        E v = get(i);
+        while (true) {
+            int iDown = (i << 1) + 2;
+            if (iBound <= iDown) {
+                break;
+            }
+            E vDown = get(iDown);
+            int iRight = iDown + 2;
+            if (iRight < iBound) {
+                E vRight = get(iRight);
+                if (less(vRight, vDown)) {
+                    vDown = vRight;
+                    iDown = iRight;
+                }
+            }
+            if (!less(vDown, v)) {
+                break;
+            }
+            set(i, vDown);
+            i = iDown;
+        }
+        set(i, v);
+        return i;
+    }
+}
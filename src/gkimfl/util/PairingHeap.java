@@ -0,0 +1,379 @@
+package gkimfl.util;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Single ended priority queue implemented as a pairing heap.
+ *
+ * A pairing heap is a tree of nodes, where each node is ordered no later than
+ * its children. Inserting an element, and moving an element earlier in the
+ * order, each link one node to the root in O(1) time. Removing the first
+ * element combines the children of the root with the two pass method: link the
+ * children in pairs from left to right, and then link the pairs from right to
+ * left. This takes O(log(N)) amortized time. In practice a pairing heap is
+ * faster than an array based heap for workloads like Dijkstra's algorithm,
+ * which move elements earlier in the order many times for each removal.
+ *
+ * Inserting an element returns its node, which may be used to move the
+ * element earlier, or to remove it in O(log(N)) amortized time. Nodes of
+ * removed elements are kept in a small pool, and reused by later insertions,
+ * so a node must not be used after its element is removed. Until it is
+ * reused, a removed node is not contained in the heap, and moving or removing
+ * it throws an exception, as does moving or removing the node of another
+ * heap.
+ *
+ * @author Allen Hubbe
+ *
+ * @param <E>
+ *            - the type of elements held in this collection
+ */
+public class PairingHeap<E> extends AbstractQueue<E> {
+    /**
+     * Node of an element in the heap.
+     */
+    public static final class Node<E> {
+        E elem;
+        Node<E> child;
+        Node<E> sibling;
+        // the left sibling, or the parent of the first child
+        Node<E> prev;
+        // the heap that holds this node, or null after it is removed
+        PairingHeap<E> owner;
+
+        Node() {}
+
+        /**
+         * Return the element of this node.
+         */
+        public E get() {
+            return elem;
+        }
+    }
+
+    private static final int POOL_LIMIT = 1 << 12;
+
+    private final Comparator<E> cmp;
+    Node<E> root;
+    private int size;
+    private Node<E> pool;
+    private int poolSize;
+
+    public PairingHeap() {
+        this(new NaturalComparator<E>());
+    }
+
+    public PairingHeap(Comparator<E> comparator) {
+        cmp = comparator;
+    }
+
+    /**
+     * Remove all elements from the heap. This releases every node, so that
+     * none of them is still contained in the heap, and takes O(N) time.
+     */
+    @Override
+    public void clear() {
+        for (NodeIterator it = new NodeIterator(); it.hasNext();) {
+            release(it.next());
+        }
+        root = null;
+        size = 0;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Insert an element into the heap, and return its node.
+     */
+    public Node<E> insert(E e) {
+        Node<E> node = allocate(e);
+        root = root == null ? node : link(root, node);
+        ++size;
+        return node;
+    }
+
+    @Override
+    public boolean offer(E e) {
+        insert(e);
+        return true;
+    }
+
+    /**
+     * Return the node of the first element.
+     */
+    public Node<E> peekNode() {
+        if (root == null) {
+            throw new NoSuchElementException();
+        }
+        return root;
+    }
+
+    @Override
+    public E peek() {
+        return peekNode().elem;
+    }
+
+    @Override
+    public E poll() {
+        Node<E> node = peekNode();
+        E e = node.elem;
+        root = combine(node.child);
+        --size;
+        release(node);
+        return e;
+    }
+
+    /**
+     * Return true if the node holds an element in this heap. A node that was
+     * removed, or that belongs to another heap, is not contained.
+     */
+    public boolean containsNode(Node<E> node) {
+        return node.owner == this;
+    }
+
+    /**
+     * Replace the element of a node with an element that is not ordered after
+     * it, and move the node to its new place in O(1) time.
+     *
+     * @throws IllegalArgumentException
+     *             if the node is not in the heap
+     */
+    public void decreaseKey(Node<E> node, E e) {
+        check(node);
+        if (less(node.elem, e)) {
+            throw new IllegalArgumentException("key increased");
+        }
+        node.elem = e;
+        if (node != root) {
+            detach(node);
+            root = link(root, node);
+        }
+    }
+
+    /**
+     * Remove the element of a node, and return the element.
+     *
+     * @throws IllegalArgumentException
+     *             if the node is not in the heap
+     */
+    public E removeNode(Node<E> node) {
+        check(node);
+        if (node == root) {
+            return poll();
+        }
+        E e = node.elem;
+        detach(node);
+        Node<E> children = combine(node.child);
+        if (children != null) {
+            root = link(root, children);
+        }
+        --size;
+        release(node);
+        return e;
+    }
+
+    /**
+     * Remove an element equal to e. This searches the heap for the element,
+     * and takes O(N) time. Use {@link #removeNode(Node)} to remove an element
+     * by its node.
+     */
+    @Override
+    public boolean removeElem(E e) {
+        for (NodeIterator it = new NodeIterator(); it.hasNext();) {
+            Node<E> node = it.next();
+            if (node.elem.equals(e)) {
+                removeNode(node);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Return an iterator for the elements. This iterator does not yield
+     * elements in sorted order.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        final NodeIterator it = new NodeIterator();
+        return new Iterator<E>() {
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public E next() {
+                return it.next().elem;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void check(Node<E> node) {
+        if (!containsNode(node)) {
+            throw new IllegalArgumentException("node is not in the heap");
+        }
+    }
+
+    private boolean less(E vA, E vB) {
+        return cmp.compare(vA, vB) < 0;
+    }
+
+    private Node<E> allocate(E e) {
+        Node<E> node = pool;
+        if (node != null) {
+            pool = node.sibling;
+            --poolSize;
+            node.sibling = null;
+        }
+        else {
+            node = new Node<E>();
+        }
+        node.elem = e;
+        node.owner = this;
+        return node;
+    }
+
+    private void release(Node<E> node) {
+        node.owner = null;
+        node.elem = null;
+        node.child = null;
+        node.prev = null;
+        node.sibling = null;
+        if (poolSize < POOL_LIMIT) {
+            node.sibling = pool;
+            pool = node;
+            ++poolSize;
+        }
+    }
+
+    /**
+     * Link two trees, and return the root of the result. The root that is
+     * ordered later becomes the first child of the other.
+     */
+    private Node<E> link(Node<E> a, Node<E> b) {
+        if (less(b.elem, a.elem)) {
+            Node<E> t = a;
+            a = b;
+            b = t;
+        }
+        Node<E> child = a.child;
+        b.sibling = child;
+        if (child != null) {
+            child.prev = b;
+        }
+        b.prev = a;
+        a.child = b;
+        a.prev = null;
+        a.sibling = null;
+        return a;
+    }
+
+    /**
+     * Remove a node that is not the root, with its subtree, from the list of
+     * children of its parent.
+     */
+    private void detach(Node<E> node) {
+        Node<E> prev = node.prev;
+        if (prev.child == node) {
+            prev.child = node.sibling;
+        }
+        else {
+            prev.sibling = node.sibling;
+        }
+        if (node.sibling != null) {
+            node.sibling.prev = prev;
+        }
+        node.prev = null;
+        node.sibling = null;
+    }
+
+    /**
+     * Combine a list of siblings into one tree with the two pass method, and
+     * return its root.
+     */
+    private Node<E> combine(Node<E> first) {
+        if (first == null) {
+            return null;
+        }
+        // link pairs from left to right, stacking the results
+        Node<E> pairs = null;
+        while (first != null) {
+            Node<E> a = first;
+            Node<E> b = a.sibling;
+            if (b == null) {
+                first = null;
+                a.prev = null;
+            }
+            else {
+                first = b.sibling;
+                a.sibling = null;
+                b.sibling = null;
+                a = link(a, b);
+            }
+            a.sibling = pairs;
+            pairs = a;
+        }
+        // link the pairs from right to left
+        Node<E> result = pairs;
+        pairs = pairs.sibling;
+        result.sibling = null;
+        while (pairs != null) {
+            Node<E> next = pairs.sibling;
+            pairs.sibling = null;
+            result = link(result, pairs);
+            pairs = next;
+        }
+        return result;
+    }
+
+    /**
+     * Depth first iterator over the nodes of the heap.
+     */
+    private class NodeIterator implements Iterator<Node<E>> {
+        private final ArrayDeque<Node<E>> stack = new ArrayDeque<Node<E>>();
+
+        NodeIterator() {
+            if (root != null) {
+                stack.push(root);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty();
+        }
+
+        @Override
+        public Node<E> next() {
+            Node<E> node = stack.pop();
+            if (node.sibling != null) {
+                stack.push(node.sibling);
+            }
+            if (node.child != null) {
+                stack.push(node.child);
+            }
+            return node;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package gkimfl.util;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Bottom up construction of an implicit tree heap on the common ForkJoinPool.
+ *
+ * Heapify restores the heap invariant at each node after the subtrees of its
+ * children are heaps, and a step at one node touches only its own subtree. The
+ * subtrees rooted at one level of the tree are therefore independent. This
+ * picks a level with a few subtrees for each thread, builds those subtrees in
+ * parallel, each one from its deepest level up, and then finishes the levels
+ * above them serially.
+ *
+ * Steps on different subtrees report positions from different threads at
+ * once, so this is only used for heaps that do not track positions.
+ *
+ * @author Allen Hubbe
+ */
+abstract class ParallelHeapify {
+    /**
+     * Minimum number of elements to heapify in parallel.
+     */
+    static final int THRESHOLD = 1 << 16;
+
+    private final int nodes;
+    private final int shift;
+
+    /**
+     * Prepare to heapify a tree of the given number of nodes, where each node
+     * has 2^shift children.
+     */
+    ParallelHeapify(int nodes, int shift) {
+        this.nodes = nodes;
+        this.shift = shift;
+    }
+
+    /**
+     * Return true if a heap of size elements, reporting positions to pos,
+     * should be built in parallel.
+     */
+    static boolean enabled(int size, MutableInt<?> pos) {
+        return THRESHOLD <= size && pos.getClass() == MutableInt.class
+                && 1 < ForkJoinPool.getCommonPoolParallelism();
+    }
+
+    /**
+     * Restore the heap invariant at node k, where the subtrees of its children
+     * are already heaps.
+     */
+    abstract void step(int k);
+
+    void run() {
+        long subtrees = 4L * ForkJoinPool.getCommonPoolParallelism();
+        long first = 0;
+        long count = 1;
+        while (count < subtrees) {
+            first = (first << shift) + 1;
+            count <<= shift;
+        }
+        int lo = (int) Math.min(first, nodes);
+        int hi = (int) Math.min(first + count, nodes);
+        if (lo < hi) {
+            ForkJoinPool.commonPool().invoke(new Subtrees(lo, hi));
+        }
+        for (int k = lo - 1; 0 <= k; --k) {
+            step(k);
+        }
+    }
+
+    /**
+     * Heapify the subtree at node k, one level at a time from the deepest.
+     */
+    private void subtree(int k) {
+        int[] los = new int[32];
+        int[] his = new int[32];
+        int depth = 0;
+        long lo = k;
+        long hi = k;
+        while (lo < nodes) {
+            los[depth] = (int) lo;
+            his[depth] = (int) Math.min(hi, nodes - 1);
+            ++depth;
+            lo = (lo << shift) + 1;
+            hi = (hi << shift) + (1 << shift);
+        }
+        while (0 <= --depth) {
+            for (int i = his[depth]; los[depth] <= i; --i) {
+                step(i);
+            }
+        }
+    }
+
+    private class Subtrees extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int lo;
+        private final int hi;
+
+        Subtrees(int lo, int hi) {
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo == 1) {
+                subtree(lo);
+            }
+            else {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new Subtrees(lo, mid), new Subtrees(mid, hi));
+            }
+        }
+    }
+}
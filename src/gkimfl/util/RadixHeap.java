@@ -0,0 +1,260 @@
+package gkimfl.util;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Monotone single ended priority queue implemented as a radix heap.
+ *
+ * Elements are ordered by long keys given by a {@link LongKey}. The queue is
+ * monotone: an element may not be inserted with a key less than the key of
+ * the last element removed from the front of the queue. Event schedulers and
+ * Dijkstra's algorithm with non negative weights satisfy this.
+ *
+ * Elements are kept in 65 buckets by the highest bit in which their key
+ * differs from the last removed key, so bucket 0 holds keys equal to the last
+ * removed key, and bucket i holds keys that differ first in bit i-1. Inserting
+ * an element appends it to its bucket in O(1) time. When bucket 0 is empty,
+ * removing the first element finds the least key in the first bucket that is
+ * not empty, and moves each element of that bucket to a lower bucket. An
+ * element only moves to lower buckets, so removal takes O(log(C)) amortized
+ * time, where C is the range of keys, and keys are compared only to find the
+ * least key of a bucket. Peeking finds the same element without moving any,
+ * so it does not change the least key that may be inserted, and it remembers
+ * the element until the queue is next modified.
+ *
+ * Elements with equal keys are removed in no particular order.
+ *
+ * @author Allen Hubbe
+ *
+ * @param <E>
+ *            - the type of elements held in this collection
+ */
+public class RadixHeap<E> extends AbstractQueue<E> {
+    private static final int BUCKETS = 65;
+
+    private final LongKey<E> key;
+    private final Object[][] elems = new Object[BUCKETS][];
+    private final long[][] keys = new long[BUCKETS][];
+    private final int[] counts = new int[BUCKETS];
+    private long last = Long.MIN_VALUE;
+    private int size;
+    // index of the least key in the first bucket after bucket 0, or -1
+    private int peeked = -1;
+
+    public RadixHeap(LongKey<E> key) {
+        this.key = key;
+        for (int b = 0; b < BUCKETS; ++b) {
+            elems[b] = new Object[4];
+            keys[b] = new long[4];
+        }
+    }
+
+    /**
+     * Remove all elements from the queue, and allow keys as low as
+     * Long.MIN_VALUE again.
+     */
+    @Override
+    public void clear() {
+        for (int b = 0; b < BUCKETS; ++b) {
+            Arrays.fill(elems[b], 0, counts[b], null);
+            counts[b] = 0;
+        }
+        size = 0;
+        last = Long.MIN_VALUE;
+        peeked = -1;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Return the key of the last element removed from the front of the queue,
+     * which is the least key that may be inserted.
+     */
+    public long lastKey() {
+        return last;
+    }
+
+    /**
+     * Insert an element into the queue.
+     *
+     * @throws IllegalArgumentException
+     *             if the key of the element is less than the last key removed
+     */
+    @Override
+    public boolean offer(E e) {
+        long k = key.get(e);
+        if (k < last) {
+            throw new IllegalArgumentException("key " + k
+                    + " is less than the last removed key " + last);
+        }
+        put(bucket(k), e, k);
+        ++size;
+        peeked = -1;
+        return true;
+    }
+
+    @Override
+    public E peek() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        if (counts[0] != 0) {
+            return elem(0, counts[0] - 1);
+        }
+        int b = firstBucket();
+        if (peeked < 0) {
+            peeked = least(b);
+        }
+        return elem(b, peeked);
+    }
+
+    @Override
+    public E poll() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        if (counts[0] == 0) {
+            redistribute(firstBucket());
+            peeked = -1;
+        }
+        int i = --counts[0];
+        E e = elem(0, i);
+        elems[0][i] = null;
+        --size;
+        return e;
+    }
+
+    /**
+     * Remove an element equal to e. This searches the queue for the element,
+     * and takes O(N) time.
+     */
+    @Override
+    public boolean removeElem(E e) {
+        for (int b = 0; b < BUCKETS; ++b) {
+            for (int i = 0; i < counts[b]; ++i) {
+                if (elems[b][i].equals(e)) {
+                    int j = --counts[b];
+                    elems[b][i] = elems[b][j];
+                    keys[b][i] = keys[b][j];
+                    elems[b][j] = null;
+                    --size;
+                    peeked = -1;
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Return an iterator for the elements. This iterator does not yield
+     * elements in sorted order.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            int b = 0;
+            int i = 0;
+
+            @Override
+            public boolean hasNext() {
+                while (b < BUCKETS && counts[b] <= i) {
+                    ++b;
+                    i = 0;
+                }
+                return b < BUCKETS;
+            }
+
+            @Override
+            public E next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return elem(b, i++);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    private E elem(int b, int i) {
+        return (E) elems[b][i];
+    }
+
+    /**
+     * Return the bucket of key k, relative to the last removed key.
+     */
+    private int bucket(long k) {
+        return 64 - Long.numberOfLeadingZeros(k ^ last);
+    }
+
+    private void put(int b, E e, long k) {
+        int i = counts[b]++;
+        if (i == elems[b].length) {
+            elems[b] = Arrays.copyOf(elems[b], i << 1);
+            keys[b] = Arrays.copyOf(keys[b], i << 1);
+        }
+        elems[b][i] = e;
+        keys[b][i] = k;
+    }
+
+    /**
+     * Return the first bucket after bucket 0 that is not empty.
+     */
+    private int firstBucket() {
+        int b = 1;
+        while (counts[b] == 0) {
+            ++b;
+        }
+        return b;
+    }
+
+    /**
+     * Return the index of the least key in bucket b, or the last such index if
+     * the least key is tied. That element is the last one redistribute moves to
+     * bucket 0, so it is the one poll removes first.
+     */
+    private int least(int b) {
+        long[] bKeys = keys[b];
+        int iMin = 0;
+        for (int i = 1; i < counts[b]; ++i) {
+            if (bKeys[i] <= bKeys[iMin]) {
+                iMin = i;
+            }
+        }
+        return iMin;
+    }
+
+    /**
+     * Make the least key in bucket b the last removed key, and move every
+     * element of bucket b to a lower bucket relative to that key.
+     */
+    private void redistribute(int b) {
+        Object[] bElems = elems[b];
+        long[] bKeys = keys[b];
+        int count = counts[b];
+        last = bKeys[peeked < 0 ? least(b) : peeked];
+        counts[b] = 0;
+        for (int i = 0; i < count; ++i) {
+            @SuppressWarnings("unchecked")
+            E e = (E) bElems[i];
+            long k = bKeys[i];
+            bElems[i] = null;
+            put(bucket(k), e, k);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package gkimfl.util;
+
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator over a range of positions in the backing list of a heap.
+ *
+ * The positions of a heap are not in order, so this reports neither ORDERED
+ * nor SORTED, and a parallel stream is free to combine results in any order.
+ * It wraps the spliterator of the backing list, so it is late binding and
+ * fail fast in the same way: the range covers the whole list as of the first
+ * traversal, split, or size estimate, and a ConcurrentModificationException is
+ * thrown if the heap is then structurally modified. Splits are not made below
+ * a minimum size, so that each task of a parallel stream has enough work.
+ *
+ * @author Allen Hubbe
+ */
+class RangeSpliterator<E> implements Spliterator<E> {
+    /**
+     * Minimum number of elements in a split.
+     */
+    static final int GRAIN = 1 << 10;
+
+    private final Spliterator<E> range;
+
+    /**
+     * Create a spliterator over the whole list, bound on first use.
+     */
+    RangeSpliterator(List<E> list) {
+        this(list.spliterator());
+    }
+
+    private RangeSpliterator(Spliterator<E> range) {
+        this.range = range;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super E> action) {
+        return range.tryAdvance(action);
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super E> action) {
+        range.forEachRemaining(action);
+    }
+
+    @Override
+    public Spliterator<E> trySplit() {
+        if (range.estimateSize() < 2 * GRAIN) {
+            return null;
+        }
+        Spliterator<E> prefix = range.trySplit();
+        return prefix == null ? null : new RangeSpliterator<E>(prefix);
+    }
+
+    @Override
+    public long estimateSize() {
+        return range.estimateSize();
+    }
+
+    @Override
+    public int characteristics() {
+        return range.characteristics() & (SIZED | SUBSIZED);
+    }
+}
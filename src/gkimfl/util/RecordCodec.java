@@ -0,0 +1,39 @@
+package gkimfl.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encoding of elements as fixed width records in a byte buffer.
+ * 
+ * A record is normally a key followed by a payload. Records are compared in
+ * place by reading only the key bytes, so ordering elements does not require
+ * decoding them into objects. All buffer accesses use absolute offsets, and
+ * must not change the position or limit of the buffer.
+ * 
+ * @author Allen Hubbe
+ * 
+ * @param <E>
+ *            - the type of elements encoded by this codec
+ */
+public interface RecordCodec<E> {
+    /**
+     * Return the number of bytes in each record.
+     */
+    int width();
+
+    /**
+     * Write element e as a record at offset in buf.
+     */
+    void encode(E e, ByteBuffer buf, int offset);
+
+    /**
+     * Read the record at offset in buf as an element.
+     */
+    E decode(ByteBuffer buf, int offset);
+
+    /**
+     * Compare the record at offsetA in bufA to the record at offsetB in bufB,
+     * with the same meaning as {@link java.util.Comparator#compare}.
+     */
+    int compare(ByteBuffer bufA, int offsetA, ByteBuffer bufB, int offsetB);
+}
@@ -0,0 +1,176 @@
+package gkimfl.util;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Minimum and maximum of the elements of a stream within a span of time.
+ *
+ * Each element is added with a time stamp, and the elements are held in an
+ * {@link IntervalHeap}, so the minimum and maximum of the window are queried in
+ * O(1) time. The elements are also kept in order of time, so the elements that
+ * have expired are found without searching. Expired elements are removed from
+ * the heap in a batch: a few are removed by their tracked positions in
+ * O(log(N)) time each, and if many expire at once, the heap is instead rebuilt
+ * from the live elements in O(N) time. Memory is proportional to the number of
+ * live elements.
+ *
+ * Time stamps must not decrease from one element to the next. The units of
+ * time are up to the caller.
+ *
+ * @author Allen Hubbe
+ *
+ * @param <E>
+ *            - the type of elements in the window
+ */
+public class SlidingMinMax<E> {
+    static final class Entry<E> {
+        final long time;
+        final E elem;
+        int pos;
+
+        Entry(long time, E e) {
+            this.time = time;
+            this.elem = e;
+        }
+    }
+
+    private static class EntryComparator<E> implements Comparator<Entry<E>> {
+        private final Comparator<E> cmp;
+
+        EntryComparator(Comparator<E> comparator) {
+            cmp = comparator;
+        }
+
+        @Override
+        public int compare(Entry<E> a, Entry<E> b) {
+            return cmp.compare(a.elem, b.elem);
+        }
+    }
+
+    private static class EntryPos<E> extends MutableInt<Entry<E>> {
+        @Override
+        public int get(Entry<E> o) {
+            return o.pos;
+        }
+
+        @Override
+        public void set(Entry<E> o, int value) {
+            o.pos = value;
+        }
+    }
+
+    private final long span;
+    private long latest = Long.MIN_VALUE;
+    private final ArrayDeque<Entry<E>> fifo;
+    final IntervalHeap<Entry<E>> heap;
+
+    public SlidingMinMax(long span) {
+        this(span, new NaturalComparator<E>());
+    }
+
+    /**
+     * Create a window of elements with time stamps later than span before the
+     * latest time.
+     */
+    public SlidingMinMax(long span, Comparator<E> comparator) {
+        if (span < 1) {
+            throw new IllegalArgumentException("span must be positive");
+        }
+        this.span = span;
+        fifo = new ArrayDeque<Entry<E>>();
+        heap = new IntervalHeap<Entry<E>>(new EntryComparator<E>(comparator),
+                new EntryPos<E>());
+    }
+
+    /**
+     * Add an element with a time stamp, and expire the elements that are no
+     * longer within the span of that time.
+     *
+     * @throws IllegalArgumentException
+     *             if time is before the latest time added or expired
+     */
+    public void add(long time, E e) {
+        expire(time);
+        Entry<E> entry = new Entry<E>(time, e);
+        fifo.offer(entry);
+        heap.offer(entry);
+    }
+
+    /**
+     * Expire the elements with time stamps at or before span before now, and
+     * make now the latest time.
+     *
+     * @throws IllegalArgumentException
+     *             if now is before the latest time added or expired
+     */
+    public void expire(long now) {
+        if (now < latest) {
+            throw new IllegalArgumentException("time " + now
+                    + " is before the latest time " + latest);
+        }
+        latest = now;
+        int count = 0;
+        for (Iterator<Entry<E>> it = fifo.iterator(); it.hasNext(); ++count) {
+            // no time stamp is after now, so the difference is exact when
+            // compared unsigned, even where now - span would overflow
+            if (Long.compareUnsigned(now - it.next().time, span) < 0) {
+                break;
+            }
+        }
+        if (count == 0) {
+            return;
+        }
+        int n = fifo.size();
+        if (count * (32 - Integer.numberOfLeadingZeros(n)) < n) {
+            for (int i = 0; i < count; ++i) {
+                heap.removeElem(fifo.poll());
+            }
+        }
+        else {
+            for (int i = 0; i < count; ++i) {
+                fifo.poll();
+            }
+            heap.clear();
+            heap.addAll(fifo);
+        }
+    }
+
+    /**
+     * Return the minimum element in the window.
+     */
+    public E min() {
+        if (heap.isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return heap.peekFirst().elem;
+    }
+
+    /**
+     * Return the maximum element in the window.
+     */
+    public E max() {
+        if (heap.isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return heap.peekLast().elem;
+    }
+
+    /**
+     * Return the number of elements in the window.
+     */
+    public int size() {
+        return fifo.size();
+    }
+
+    public boolean isEmpty() {
+        return fifo.isEmpty();
+    }
+
+    public void clear() {
+        fifo.clear();
+        heap.clear();
+    }
+}
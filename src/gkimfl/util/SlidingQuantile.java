@@ -0,0 +1,202 @@
+package gkimfl.util;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+
+/**
+ * Running quantile of the most recent elements of a stream.
+ *
+ * The elements of the window are split between two {@link Heap}s: a max heap
+ * of the elements up to and including the quantile, and a min heap of the
+ * elements after it. The quantile is the first element of the max heap, so
+ * it is queried in O(1) time. Each heap tracks the positions of its elements,
+ * so when an element expires from the window, it is removed from its heap in
+ * O(log(N)) time, and at most a few elements move between the heaps to keep
+ * the split at the quantile.
+ *
+ * The quantile q of N elements is the element of rank floor(q * (N - 1)) in
+ * sorted order, counting from zero. The median is the quantile 0.5, which is
+ * the lower of the two middle elements if N is even.
+ *
+ * Elements expire in the order they were added, either when the window is
+ * full, or when {@link #removeOldest()} is called, for example to expire
+ * elements by time.
+ *
+ * @author Allen Hubbe
+ *
+ * @param <E>
+ *            - the type of elements in the window
+ */
+public class SlidingQuantile<E> {
+    static final class Node<E> {
+        final E elem;
+        boolean lower;
+        int pos;
+
+        Node(E e) {
+            elem = e;
+        }
+    }
+
+    private static class NodeComparator<E> implements Comparator<Node<E>> {
+        private final Comparator<E> cmp;
+
+        NodeComparator(Comparator<E> comparator) {
+            cmp = comparator;
+        }
+
+        @Override
+        public int compare(Node<E> a, Node<E> b) {
+            return cmp.compare(a.elem, b.elem);
+        }
+    }
+
+    private static class NodePos<E> extends MutableInt<Node<E>> {
+        @Override
+        public int get(Node<E> o) {
+            return o.pos;
+        }
+
+        @Override
+        public void set(Node<E> o, int value) {
+            o.pos = value;
+        }
+    }
+
+    private final Comparator<E> cmp;
+    private final double quantile;
+    private final int window;
+    private final ArrayDeque<Node<E>> fifo;
+    final Heap<Node<E>> lower;
+    final Heap<Node<E>> upper;
+
+    public SlidingQuantile(int window, double quantile) {
+        this(window, quantile, new NaturalComparator<E>());
+    }
+
+    /**
+     * Create a tracker of the given quantile, between 0 and 1, of at most
+     * window elements.
+     */
+    public SlidingQuantile(int window, double quantile, Comparator<E> comparator) {
+        if (window < 1) {
+            throw new IllegalArgumentException("window must be positive");
+        }
+        if (!(0 <= quantile && quantile <= 1)) {
+            throw new IllegalArgumentException("quantile must be between 0 and 1");
+        }
+        this.cmp = comparator;
+        this.quantile = quantile;
+        this.window = window;
+        fifo = new ArrayDeque<Node<E>>();
+        NodeComparator<E> nodeCmp = new NodeComparator<E>(comparator);
+        NodePos<E> pos = new NodePos<E>();
+        lower = new Heap<Node<E>>(Collections.reverseOrder(nodeCmp), pos);
+        upper = new Heap<Node<E>>(nodeCmp, pos);
+    }
+
+    /**
+     * Add an element to the window. If the window is full, the oldest element
+     * expires.
+     */
+    public void add(E e) {
+        Node<E> node = new Node<E>(e);
+        if (fifo.size() == window) {
+            remove(fifo.poll());
+        }
+        fifo.offer(node);
+        if (!lower.isEmpty() && less(e, lower.peek().elem)) {
+            node.lower = true;
+            lower.offer(node);
+        }
+        else {
+            upper.offer(node);
+        }
+        balance();
+    }
+
+    /**
+     * Remove the oldest element from the window, and return it.
+     */
+    public E removeOldest() {
+        Node<E> node = fifo.poll();
+        if (node == null) {
+            throw new NoSuchElementException();
+        }
+        remove(node);
+        balance();
+        return node.elem;
+    }
+
+    /**
+     * Return the oldest element in the window.
+     */
+    public E peekOldest() {
+        Node<E> node = fifo.peek();
+        if (node == null) {
+            throw new NoSuchElementException();
+        }
+        return node.elem;
+    }
+
+    /**
+     * Return the quantile of the elements in the window.
+     */
+    public E quantile() {
+        if (fifo.isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return lower.peek().elem;
+    }
+
+    /**
+     * Return the number of elements in the window.
+     */
+    public int size() {
+        return fifo.size();
+    }
+
+    public boolean isEmpty() {
+        return fifo.isEmpty();
+    }
+
+    public void clear() {
+        fifo.clear();
+        lower.clear();
+        upper.clear();
+    }
+
+    private boolean less(E vA, E vB) {
+        return cmp.compare(vA, vB) < 0;
+    }
+
+    private void remove(Node<E> node) {
+        if (node.lower) {
+            lower.removeElem(node);
+        }
+        else {
+            upper.removeElem(node);
+        }
+    }
+
+    /**
+     * Move elements between the heaps until the quantile is the first element
+     * of the lower heap.
+     */
+    private void balance() {
+        int n = fifo.size();
+        int target = n == 0 ? 0 : (int) (quantile * (n - 1)) + 1;
+        while (target < lower.size()) {
+            Node<E> node = lower.poll();
+            node.lower = false;
+            upper.offer(node);
+        }
+        while (lower.size() < target) {
+            Node<E> node = upper.poll();
+            node.lower = true;
+            lower.offer(node);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package gkimfl.util;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterator over the elements of an implicit tree heap in order, without
+ * modifying the heap.
+ *
+ * Every element of the heap is ordered no prior to its parent, so the next
+ * element in order is always the least of the elements whose parents have
+ * been yielded. Those positions are kept in a small binary heap of indices,
+ * the frontier, which starts with the root. Each element yielded adds its
+ * children to the frontier, so the first k elements are yielded in O(k log(k))
+ * time, and the frontier holds O(k) indices.
+ *
+ * The iterator is not valid after the heap is modified.
+ *
+ * @author Allen Hubbe
+ */
+abstract class SortedIterator<E> implements Iterator<E> {
+    private final List<E> queue;
+    private final Comparator<E> cmp;
+    private int[] frontier = new int[16];
+    private int size;
+
+    /**
+     * Iterate over the elements of queue in the order of comparator, starting
+     * with the element at root, or no elements if root is not in the queue.
+     */
+    SortedIterator(List<E> queue, Comparator<E> comparator, int root) {
+        this.queue = queue;
+        this.cmp = comparator;
+        if (0 <= root && root < queue.size()) {
+            push(root);
+        }
+    }
+
+    /**
+     * Add the positions that follow position i in the tree to the frontier.
+     */
+    abstract void expand(int i);
+
+    @Override
+    public boolean hasNext() {
+        return size != 0;
+    }
+
+    @Override
+    public E next() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        int i = frontier[0];
+        int last = frontier[--size];
+        if (size != 0) {
+            pushDown(last);
+        }
+        expand(i);
+        return queue.get(i);
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Add position i to the frontier.
+     */
+    void push(int i) {
+        if (size == frontier.length) {
+            frontier = Arrays.copyOf(frontier, size << 1);
+        }
+        E v = queue.get(i);
+        int k = size++;
+        while (0 < k) {
+            int kUp = (k - 1) >> 1;
+            if (cmp.compare(v, queue.get(frontier[kUp])) >= 0) {
+                break;
+            }
+            frontier[k] = frontier[kUp];
+            k = kUp;
+        }
+        frontier[k] = i;
+    }
+
+    private void pushDown(int i) {
+        E v = queue.get(i);
+        int k = 0;
+        while (true) {
+            int kDown = (k << 1) + 1;
+            if (size <= kDown) {
+                break;
+            }
+            E vDown = queue.get(frontier[kDown]);
+            int kRight = kDown + 1;
+            if (kRight < size) {
+                E vRight = queue.get(frontier[kRight]);
+                if (cmp.compare(vRight, vDown) < 0) {
+                    kDown = kRight;
+                    vDown = vRight;
+                }
+            }
+            if (cmp.compare(vDown, v) >= 0) {
+                break;
+            }
+            frontier[k] = frontier[kDown];
+            k = kDown;
+        }
+        frontier[k] = i;
+    }
+}
@@ -0,0 +1,302 @@
+package gkimfl.util;
+
+import java.util.Collection;
+import java.util.Comparator;
+
+/**
+ * Hierarchical timing wheel for timers with deadlines, with a heap for timers
+ * beyond the range of the wheel.
+ *
+ * Time is divided into ticks of a fixed length. The wheel has several levels
+ * of 64 slots, each slot a list of timers. The first level has one slot for
+ * each of the next 64 ticks, the second level one slot for each of the next 64
+ * runs of 64 ticks, and so on. Scheduling a timer links it into the slot of
+ * its deadline, and cancelling a timer unlinks it, both in O(1) time. Each
+ * time the first level wraps around, the timers of the next slot of the
+ * second level cascade down into the first level, and likewise for the higher
+ * levels, as in the timer wheel of the Linux kernel. Timers with deadlines
+ * beyond the range of the wheel are kept in a {@link Heap}, and move into the
+ * wheel as time advances; scheduling and cancelling those takes O(log(N))
+ * time.
+ *
+ * Advancing the wheel to a new time collects the elements of every timer that
+ * has expired into a collection supplied by the caller, and allocates nothing
+ * for each timer. A timer expires at the first tick at or after its deadline.
+ * A timer scheduled for a deadline in a tick that has already passed expires
+ * at the next tick.
+ *
+ * @author Allen Hubbe
+ *
+ * @param <E>
+ *            - the type of elements held by timers
+ */
+public class TimingWheel<E> {
+    /**
+     * Handle of a scheduled element.
+     */
+    public static final class Timer<E> {
+        private static final int IDLE = -1;
+        private static final int OVERFLOW = -2;
+
+        final E elem;
+        TimingWheel<E> wheel;
+        long deadline;
+        long expires;
+        int slot = IDLE;
+        int pos;
+        Timer<E> prev;
+        Timer<E> next;
+
+        Timer(E e) {
+            elem = e;
+        }
+
+        /**
+         * Return the element of this timer.
+         */
+        public E get() {
+            return elem;
+        }
+
+        /**
+         * Return the deadline of this timer.
+         */
+        public long deadline() {
+            return deadline;
+        }
+
+        /**
+         * Return true if this timer is scheduled, and has neither expired nor
+         * been cancelled.
+         */
+        public boolean isScheduled() {
+            return slot != IDLE;
+        }
+    }
+
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+
+    private final long tickLength;
+    private final int levels;
+    private final long range;
+    private final Timer<E>[] slots;
+    final Heap<Timer<E>> overflow;
+    private long tick;
+    private int wheelCount;
+
+    public TimingWheel(long tickLength) {
+        this(tickLength, 4, 0);
+    }
+
+    /**
+     * Create a wheel with the given number of levels, starting at time start.
+     * The wheel holds timers up to 64^levels ticks ahead.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public TimingWheel(long tickLength, int levels, long start) {
+        if (tickLength < 1) {
+            throw new IllegalArgumentException("tick length must be positive");
+        }
+        if (levels < 1 || 63 < levels * BITS) {
+            throw new IllegalArgumentException("levels must be from 1 to 10");
+        }
+        this.tickLength = tickLength;
+        this.levels = levels;
+        this.range = 1L << (levels * BITS);
+        this.slots = new Timer[levels * SLOTS];
+        this.tick = Math.floorDiv(start, tickLength);
+        this.overflow = new Heap<Timer<E>>(new Comparator<Timer<E>>() {
+            @Override
+            public int compare(Timer<E> a, Timer<E> b) {
+                return a.expires < b.expires ? -1 : a.expires > b.expires ? +1 : 0;
+            }
+        }, new MutableInt<Timer<E>>() {
+            @Override
+            public int get(Timer<E> o) {
+                return o.pos;
+            }
+
+            @Override
+            public void set(Timer<E> o, int value) {
+                o.pos = value;
+            }
+        });
+    }
+
+    /**
+     * Schedule an element to expire at a deadline, and return its timer.
+     */
+    public Timer<E> schedule(E e, long deadline) {
+        Timer<E> timer = new Timer<E>(e);
+        reschedule(timer, deadline);
+        return timer;
+    }
+
+    /**
+     * Schedule a timer again for a new deadline, whether or not it is
+     * scheduled now. A timer that is not scheduled may be rescheduled in any
+     * wheel.
+     */
+    public void reschedule(Timer<E> timer, long deadline) {
+        cancel(timer);
+        timer.wheel = this;
+        timer.deadline = deadline;
+        timer.expires = -Math.floorDiv(-deadline, tickLength);
+        place(timer);
+    }
+
+    /**
+     * Cancel a timer. Return false if the timer was not scheduled.
+     *
+     * @throws IllegalArgumentException
+     *             if the timer is scheduled in another wheel
+     */
+    public boolean cancel(Timer<E> timer) {
+        if (timer.slot == Timer.IDLE) {
+            return false;
+        }
+        if (timer.wheel != this) {
+            throw new IllegalArgumentException("timer is not in this wheel");
+        }
+        if (timer.slot == Timer.OVERFLOW) {
+            overflow.removeElem(timer);
+            timer.slot = Timer.IDLE;
+        }
+        else {
+            unlink(timer);
+        }
+        timer.wheel = null;
+        return true;
+    }
+
+    /**
+     * Advance the wheel to time now, and add the elements of the timers that
+     * have expired to out, in order of the tick at which they expired. Return
+     * the number of elements added.
+     */
+    public int advance(long now, Collection<? super E> out) {
+        long target = Math.floorDiv(now, tickLength);
+        int count = 0;
+        while (tick <= target) {
+            if (wheelCount == 0) {
+                // nothing to do until the first timer of the overflow heap
+                long next = overflow.isEmpty() ? Long.MAX_VALUE
+                        : overflow.peek().expires - range + 1;
+                if (tick < next) {
+                    tick = Math.min(next, target + 1);
+                    pull();
+                    continue;
+                }
+            }
+            int index = (int) tick & MASK;
+            if (index == 0) {
+                for (int level = 1; level < levels; ++level) {
+                    int i = (int) (tick >> (level * BITS)) & MASK;
+                    cascade(level * SLOTS + i);
+                    if (i != 0) {
+                        break;
+                    }
+                }
+            }
+            pull();
+            Timer<E> timer = slots[index];
+            slots[index] = null;
+            while (timer != null) {
+                Timer<E> next = timer.next;
+                timer.prev = null;
+                timer.next = null;
+                timer.slot = Timer.IDLE;
+                timer.wheel = null;
+                --wheelCount;
+                out.add(timer.elem);
+                ++count;
+                timer = next;
+            }
+            ++tick;
+        }
+        return count;
+    }
+
+    /**
+     * Return the number of scheduled timers.
+     */
+    public int size() {
+        return wheelCount + overflow.size();
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Link a timer into the slot of its deadline, or into the overflow heap if
+     * the deadline is beyond the range of the wheel.
+     */
+    private void place(Timer<E> timer) {
+        long delta = timer.expires - tick;
+        int slot;
+        if (delta < 0) {
+            slot = (int) tick & MASK;
+        }
+        else if (range <= delta) {
+            timer.slot = Timer.OVERFLOW;
+            overflow.offer(timer);
+            return;
+        }
+        else {
+            int level = (63 - Long.numberOfLeadingZeros(delta | 1)) / BITS;
+            slot = level * SLOTS + ((int) (timer.expires >> (level * BITS)) & MASK);
+        }
+        Timer<E> head = slots[slot];
+        timer.next = head;
+        timer.prev = null;
+        if (head != null) {
+            head.prev = timer;
+        }
+        slots[slot] = timer;
+        timer.slot = slot;
+        ++wheelCount;
+    }
+
+    private void unlink(Timer<E> timer) {
+        if (timer.prev == null) {
+            slots[timer.slot] = timer.next;
+        }
+        else {
+            timer.prev.next = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.prev = timer.prev;
+        }
+        timer.prev = null;
+        timer.next = null;
+        timer.slot = Timer.IDLE;
+        --wheelCount;
+    }
+
+    /**
+     * Move the timers of a slot of a higher level down into lower levels.
+     */
+    private void cascade(int slot) {
+        Timer<E> timer = slots[slot];
+        slots[slot] = null;
+        while (timer != null) {
+            Timer<E> next = timer.next;
+            --wheelCount;
+            place(timer);
+            timer = next;
+        }
+    }
+
+    /**
+     * Move the timers of the overflow heap that are now within range into the
+     * wheel.
+     */
+    private void pull() {
+        while (!overflow.isEmpty() && overflow.peek().expires - tick < range) {
+            place(overflow.poll());
+        }
+    }
+}
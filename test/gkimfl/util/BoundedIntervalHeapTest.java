@@ -0,0 +1,104 @@
+package gkimfl.util;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class BoundedIntervalHeapTest {
+    Random rand = new Random();
+
+    static class CountingListener extends BoundedIntervalHeap.Listener<Integer> {
+        ArrayList<Integer> evicted = new ArrayList<Integer>();
+
+        @Override
+        public void evicted(Integer e) {
+            evicted.add(e);
+        }
+    }
+
+    @Test
+    public final void testTopK() {
+        CountingListener listener = new CountingListener();
+        BoundedIntervalHeap<Integer> heap = new BoundedIntervalHeap<Integer>(3, true,
+                new NaturalComparator<Integer>(), listener);
+        assertTrue(heap.addAll(Arrays.asList(1, 7, 5, 3, 8, 2, 4, 6, 0)));
+        assertEquals(3, heap.size());
+        assertEquals(6, heap.evictions());
+        assertEquals(6, (int) heap.pollFirst());
+        assertEquals(8, (int) heap.pollLast());
+        assertEquals(7, (int) heap.pollLast());
+        Collections.sort(listener.evicted);
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5), listener.evicted);
+    }
+
+    @Test
+    public final void testBottomK() {
+        BoundedIntervalHeap<Integer> heap = new BoundedIntervalHeap<Integer>(3, false);
+        for (int v : new int[] { 1, 7, 5, 3, 8, 2, 4, 6, 0 }) {
+            heap.offer(v);
+        }
+        assertFalse(heap.offer(9));
+        assertEquals(0, (int) heap.pollFirst());
+        assertEquals(1, (int) heap.pollFirst());
+        assertEquals(2, (int) heap.pollFirst());
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    public final void testStream() {
+        for (int k : new int[] { 1, 2, 3, 10, 100 }) {
+            for (boolean evictFirst : new boolean[] { true, false }) {
+                BoundedIntervalHeap<Integer> heap = new BoundedIntervalHeap<Integer>(k,
+                        evictFirst);
+                ArrayList<Integer> all = new ArrayList<Integer>();
+                for (int i = 0; i < 10000; ++i) {
+                    int v = rand.nextInt(5000);
+                    all.add(v);
+                    heap.offer(v);
+                    assertTrue(heap.size() <= k);
+                }
+                Collections.sort(all);
+                if (evictFirst) {
+                    Collections.reverse(all);
+                }
+                ArrayList<Integer> kept = new ArrayList<Integer>();
+                while (!heap.isEmpty()) {
+                    kept.add(evictFirst ? heap.pollLast() : heap.pollFirst());
+                }
+                assertEquals(all.subList(0, k), kept);
+                assertEquals(10000 - k, heap.evictions());
+            }
+        }
+    }
+
+    @Test
+    public final void testMeld() {
+        BoundedIntervalHeap<Integer> heap = new BoundedIntervalHeap<Integer>(3, true);
+        IntervalHeap<Integer> other = new IntervalHeap<Integer>();
+        for (int v : new int[] { 1, 7, 5, 3, 8, 2, 4, 6, 0 }) {
+            other.offer(v);
+        }
+        heap.merge(other);
+        assertEquals(3, heap.size());
+        assertEquals(9, other.size());
+        heap.meld(other);
+        assertEquals(3, heap.size());
+        assertTrue(other.isEmpty());
+        // the three greatest of 6, 7, 8 and the nine elements again
+        assertEquals(7, (int) heap.pollFirst());
+        assertEquals(8, (int) heap.pollFirst());
+        assertEquals(8, (int) heap.pollFirst());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public final void testMergeSelf() {
+        IntervalHeap<Integer> heap = new IntervalHeap<Integer>();
+        heap.offer(1);
+        heap.merge(heap);
+    }
+}
@@ -0,0 +1,107 @@
+package gkimfl.util;
+
+import static org.junit.Assert.*;
+
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class CalendarQueueTest {
+    Random rand = new Random();
+    CalendarQueue<Long> queue;
+
+    @Before
+    public void setUp() throws Exception {
+        queue = new CalendarQueue<Long>(RadixHeapTest.IDENTITY);
+        for (long v : new long[] { 1, 7, 5, 3, 8, 2, 4, 6, 0 }) {
+            queue.offer(v);
+        }
+    }
+
+    @Test
+    public final void testPoll() {
+        for (long i = 0; i <= 8; ++i) {
+            assertEquals(i, (long) queue.peek());
+            assertEquals(i, (long) queue.poll());
+        }
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public final void testRemove() {
+        assertTrue(queue.remove((Object) 5L));
+        assertFalse(queue.remove((Object) 5L));
+        assertEquals(8, queue.size());
+        int count = 0;
+        for (long v : queue) {
+            assertTrue(v != 5);
+            ++count;
+        }
+        assertEquals(8, count);
+        for (long v : new long[] { 0, 1, 2, 3, 4, 6, 7, 8 }) {
+            assertEquals(v, (long) queue.poll());
+        }
+    }
+
+    @Test
+    public final void testHold() {
+        // the classic hold model: remove the first event, and schedule another
+        // after it by a random delay
+        PriorityQueue<Long> check = new PriorityQueue<Long>();
+        queue.clear();
+        for (int i = 0; i < 10000; ++i) {
+            long v = rand.nextInt(100000);
+            queue.offer(v);
+            check.offer(v);
+        }
+        for (int i = 0; i < 200000; ++i) {
+            long now = queue.poll();
+            assertEquals(check.poll(), (Long) now);
+            // occasionally grow or shrink, or schedule far in the future
+            int n = i % 1000 < 500 ? 1 : i % 3;
+            for (int j = 0; j < n; ++j) {
+                long v = now + (rand.nextInt(50) == 0 ? rand.nextInt(1 << 30) : rand.nextInt(20));
+                queue.offer(v);
+                check.offer(v);
+            }
+            assertEquals(check.size(), queue.size());
+            if (queue.isEmpty()) {
+                break;
+            }
+        }
+    }
+
+    @Test
+    public final void testSkew() {
+        // keys that are not monotone, clustered, and spread over the whole
+        // range of long
+        PriorityQueue<Long> check = new PriorityQueue<Long>();
+        queue.clear();
+        for (int i = 0; i < 100000; ++i) {
+            if (!check.isEmpty() && rand.nextInt(3) == 0) {
+                assertEquals(check.poll(), queue.poll());
+            }
+            else {
+                long v;
+                switch (rand.nextInt(3)) {
+                case 0:
+                    v = rand.nextLong();
+                    break;
+                case 1:
+                    v = 1000 + rand.nextInt(3);
+                    break;
+                default:
+                    v = rand.nextInt(1 << 20);
+                }
+                queue.offer(v);
+                check.offer(v);
+            }
+            assertEquals(check.size(), queue.size());
+        }
+        while (!check.isEmpty()) {
+            assertEquals(check.poll(), queue.poll());
+        }
+    }
+}
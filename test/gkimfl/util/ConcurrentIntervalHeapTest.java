@@ -0,0 +1,159 @@
+package gkimfl.util;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConcurrentIntervalHeapTest {
+    Random rand = new Random();
+    ConcurrentIntervalHeap<Integer> heap;
+
+    @Before
+    public void setUp() throws Exception {
+        heap = new ConcurrentIntervalHeap<Integer>(1 << 16);
+        for (int v : new int[] { 1, 7, 5, 3, 8, 2, 4, 6, 0 }) {
+            heap.offer(v);
+        }
+    }
+
+    public static void assertIsHeap(ConcurrentIntervalHeap<Integer> h) {
+        List<Integer> q = new ArrayList<Integer>(h);
+        for (int i = 2; i < q.size(); ++i) {
+            if ((i & 1) == 0) {
+                assertFalse(q.get(i) < q.get(((i >> 1) - 1) & ~1));
+            }
+            if ((i & 1) == 1 || i + 1 == q.size()) {
+                assertFalse(q.get(i) > q.get(((i >> 1) - 1) | 1));
+            }
+        }
+        for (int i = 0; i + 1 < q.size(); i += 2) {
+            assertFalse(q.get(i + 1) < q.get(i));
+        }
+    }
+
+    @Test
+    public final void testPollMin() {
+        assertIsHeap(heap);
+        for (int i = 0; i <= 8; ++i) {
+            assertTrue(heap.pollFirst() == i);
+            assertIsHeap(heap);
+        }
+        assertNull(heap.pollFirst());
+    }
+
+    @Test
+    public final void testPollMax() {
+        for (int i = 8; i >= 0; --i) {
+            assertTrue(heap.pollLast() == i);
+            assertIsHeap(heap);
+        }
+        assertNull(heap.pollLast());
+    }
+
+    @Test
+    public final void testCapacity() {
+        heap = new ConcurrentIntervalHeap<Integer>(3);
+        assertTrue(heap.offer(2));
+        assertTrue(heap.offer(1));
+        assertTrue(heap.offer(3));
+        assertFalse(heap.offer(4));
+        assertTrue(heap.pollLast() == 3);
+        assertTrue(heap.offer(4));
+        assertTrue(heap.peekFirst() == 1);
+        assertTrue(heap.peekLast() == 4);
+    }
+
+    @Test
+    public final void testStress() {
+        int count = 200000; // number of times to call offer, pollFirst, and pollLast
+        IntervalHeap<Integer> expect = new IntervalHeap<Integer>(heap);
+        for (int i = 0; i < count; ++i) {
+            if (!expect.isEmpty() && rand.nextBoolean()) {
+                if (rand.nextBoolean()) {
+                    assertEquals(expect.pollFirst(), heap.pollFirst());
+                }
+                else {
+                    assertEquals(expect.pollLast(), heap.pollLast());
+                }
+            }
+            else if (expect.size() < (1 << 16)) {
+                int value = rand.nextInt(1000);
+                expect.offer(value);
+                heap.offer(value);
+            }
+        }
+        assertIsHeap(heap);
+    }
+
+    @Test
+    public final void testConcurrentStress() throws InterruptedException {
+        final int threads = 8;
+        final int count = 100000; // operations per thread
+        final List<List<Integer>> polled = new ArrayList<List<Integer>>();
+        Thread[] workers = new Thread[threads];
+        heap.clear();
+        for (int t = 0; t < threads; ++t) {
+            final int id = t;
+            final List<Integer> mine = new ArrayList<Integer>();
+            polled.add(mine);
+            workers[t] = new Thread() {
+                @Override
+                public void run() {
+                    Random r = new Random(id);
+                    for (int i = 0; i < count; ++i) {
+                        int op = r.nextInt(4);
+                        if (op < 2) {
+                            heap.offer(i * threads + id);
+                        }
+                        else {
+                            Integer v = op == 2 ? heap.pollFirst() : heap.pollLast();
+                            if (v != null) {
+                                mine.add(v);
+                            }
+                        }
+                    }
+                }
+            };
+        }
+        for (Thread w : workers) {
+            w.start();
+        }
+        for (Thread w : workers) {
+            w.join();
+        }
+        assertIsHeap(heap);
+
+        List<Integer> all = new ArrayList<Integer>();
+        for (List<Integer> mine : polled) {
+            all.addAll(mine);
+        }
+        int prev = Integer.MIN_VALUE;
+        while (!heap.isEmpty()) {
+            int v = heap.pollFirst();
+            assertTrue(prev <= v);
+            prev = v;
+            all.add(v);
+        }
+        Collections.sort(all);
+        for (int i = 1; i < all.size(); ++i) {
+            assertTrue(all.get(i - 1) < all.get(i));
+        }
+        int offered = 0;
+        for (int t = 0; t < threads; ++t) {
+            Random r = new Random(t);
+            for (int i = 0; i < count; ++i) {
+                if (r.nextInt(4) < 2) {
+                    assertTrue(Collections.binarySearch(all, i * threads + t) >= 0);
+                    ++offered;
+                }
+            }
+        }
+        assertTrue(all.size() == offered);
+    }
+}
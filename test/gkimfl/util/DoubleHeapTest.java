@@ -0,0 +1,110 @@
+package gkimfl.util;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class DoubleHeapTest {
+    Random rand = new Random();
+    DoubleHeap heap;
+
+    @Before
+    public void setUp() {
+        heap = new DoubleHeap(new double[] { 4, 1, 5, 7, 3, 8, 6, 2, 0 });
+    }
+
+    public static void assertIsMinHeap(DoubleHeap h) {
+        for (int i = 1; i < h.size; ++i) {
+            int iUp = (i - 1) >> 1;
+            assertFalse(Double.compare(h.queue[i], h.queue[iUp]) < 0);
+        }
+    }
+
+    @Test
+    public void testIsMinHeap() {
+        assertIsMinHeap(heap);
+    }
+
+    @Test
+    public void testPoll() {
+        for (int i = 0; i <= 8; ++i) {
+            assertTrue(heap.peek() == i);
+            assertTrue(heap.poll() == i);
+        }
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    public void testOffer() {
+        heap = new DoubleHeap(1);
+        heap.offer(4);
+        heap.offer(1);
+        heap.offer(5);
+        heap.offer(7);
+        heap.offer(3);
+        heap.offer(8);
+        heap.offer(6);
+        heap.offer(2);
+        heap.offer(0);
+        testIsMinHeap();
+        testPoll();
+    }
+
+    @Test
+    public void testSpecialValues() {
+        double[] order = { Double.NEGATIVE_INFINITY, -1, -0.0, 0.0, Double.MIN_VALUE, 1,
+                Double.POSITIVE_INFINITY, Double.NaN };
+        heap = new DoubleHeap(1);
+        for (int i = order.length - 1; 0 <= i; --i) {
+            heap.offer(order[i]);
+            assertIsMinHeap(heap);
+        }
+        heap.offer(0.0);
+        heap.offer(-0.0);
+        heap.offer(Double.NaN);
+        assertIsMinHeap(heap);
+        for (double v : order) {
+            assertEquals(0, Double.compare(v, heap.peek()));
+            assertEquals(0, Double.compare(v, heap.poll()));
+            if (v == 0 || Double.isNaN(v)) {
+                assertEquals(0, Double.compare(v, heap.poll()));
+            }
+        }
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    public void testAddAllStress() {
+        int count = 1000; // number of times to call addAll
+        for (int i = 0; i < count; ++i) {
+            double[] values = new double[rand.nextInt(2 * i + 1)];
+            for (int j = 0; j < values.length; ++j) {
+                switch (rand.nextInt(20)) {
+                case 0:
+                    values[j] = Double.NaN;
+                    break;
+                case 1:
+                    values[j] = -0.0;
+                    break;
+                case 2:
+                    values[j] = 0.0;
+                    break;
+                default:
+                    values[j] = rand.nextInt(10 * i + 1) - 5 * i;
+                }
+            }
+            assertEquals(values.length != 0, heap.addAll(values));
+            assertIsMinHeap(heap);
+        }
+        double[] sorted = heap.toArray();
+        Arrays.sort(sorted);
+        for (int i = 0; i < sorted.length; ++i) {
+            assertEquals(0, Double.compare(sorted[i], heap.poll()));
+        }
+        assertTrue(heap.isEmpty());
+    }
+}
@@ -0,0 +1,136 @@
+package gkimfl.util;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class DualHeapTest {
+    Random rand = new Random();
+    DualHeap<Integer> heap;
+
+    @Before
+    public void setUp() throws Exception {
+        heap = new DualHeap<Integer>();
+        for (int v : new int[] { 1, 7, 5, 3, 8, 2, 4, 6, 0 }) {
+            heap.offer(v);
+        }
+    }
+
+    public static <E> void assertPositions(DualHeap<E> h) {
+        for (int i = 0; i < h.fore.size(); ++i) {
+            assertEquals(i, h.fore.queue.get(i).forePos);
+        }
+        for (int i = 0; i < h.back.size(); ++i) {
+            assertEquals(i, h.back.queue.get(i).backPos);
+        }
+    }
+
+    @Test
+    public final void testPoll() {
+        for (int i = 0; i < 4; ++i) {
+            assertEquals(i, (int) heap.pollFirst());
+            assertEquals(8 - i, (int) heap.pollLast());
+            assertPositions(heap);
+            assertEquals(7 - 2 * i, heap.size());
+        }
+        assertEquals(4, (int) heap.pollLast());
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    public final void testRemove() {
+        DualHeap.Node<Integer> node = heap.insert(10);
+        assertEquals(10, (int) heap.peekLast());
+        heap.removeNode(node);
+        assertFalse(heap.containsNode(node));
+        assertTrue(heap.remove((Object) 8));
+        assertFalse(heap.remove((Object) 8));
+        assertEquals(7, (int) heap.peekLast());
+        assertPositions(heap);
+    }
+
+    @Test
+    public final void testRemoveTwice() {
+        DualHeap<Integer> single = new DualHeap<Integer>();
+        DualHeap.Node<Integer> gone = single.insert(1);
+        DualHeap.Node<Integer> kept = single.insert(2);
+        assertTrue(single.removeNode(gone));
+        assertFalse(single.removeNode(gone));
+        assertEquals(1, single.size());
+        assertTrue(single.containsNode(kept));
+        // a node of another queue is not removed from this one
+        assertFalse(heap.removeNode(kept));
+        assertFalse(heap.containsNode(kept));
+        assertEquals(2, (int) single.peekFirst());
+        assertPositions(heap);
+    }
+
+    @Test
+    public final void testIndependentOrder() {
+        // first by value, last by distance from 5
+        heap = new DualHeap<Integer>(new NaturalComparator<Integer>(),
+                new Comparator<Integer>() {
+                    @Override
+                    public int compare(Integer a, Integer b) {
+                        return Math.abs(a - 5) - Math.abs(b - 5);
+                    }
+                });
+        for (int v : new int[] { 1, 7, 5, 3, 8, 2, 4, 6, 0 }) {
+            heap.offer(v);
+        }
+        assertEquals(5, (int) heap.pollLast());
+        assertEquals(0, (int) heap.pollFirst());
+        assertPositions(heap);
+    }
+
+    @Test
+    public final void testStress() {
+        int count = 100000;
+        heap.clear();
+        TreeMap<Integer, Integer> check = new TreeMap<Integer, Integer>();
+        ArrayList<DualHeap.Node<Integer>> nodes = new ArrayList<DualHeap.Node<Integer>>();
+        for (int i = 0; i < count; ++i) {
+            int op = rand.nextInt(4);
+            if (heap.isEmpty() || op == 0) {
+                int v = rand.nextInt(1000);
+                nodes.add(heap.insert(v));
+                add(check, v, 1);
+            }
+            else if (op == 1) {
+                int v = heap.pollFirst();
+                assertEquals(check.firstKey(), (Integer) v);
+                add(check, v, -1);
+            }
+            else if (op == 2) {
+                int v = heap.pollLast();
+                assertEquals(check.lastKey(), (Integer) v);
+                add(check, v, -1);
+            }
+            else {
+                DualHeap.Node<Integer> node = nodes.remove(rand.nextInt(nodes.size()));
+                if (heap.containsNode(node)) {
+                    heap.removeNode(node);
+                    add(check, node.get(), -1);
+                }
+            }
+        }
+        assertPositions(heap);
+    }
+
+    private static void add(TreeMap<Integer, Integer> m, int v, int n) {
+        Integer c = m.get(v);
+        int nc = (c == null ? 0 : c) + n;
+        if (nc == 0) {
+            m.remove(v);
+        }
+        else {
+            m.put(v, nc);
+        }
+    }
+}
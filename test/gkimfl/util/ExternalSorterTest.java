@@ -0,0 +1,175 @@
+package gkimfl.util;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ExternalSorterTest {
+    Random rand = new Random();
+    File dir;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = File.createTempFile("sorter", "");
+        dir.delete();
+        dir.mkdir();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for (File f : dir.listFiles()) {
+            f.delete();
+        }
+        dir.delete();
+    }
+
+    private ExternalSorter<Long> sorter(int memory) {
+        return new ExternalSorter<Long>(new LongCodec(), new NaturalComparator<Long>(), memory, dir);
+    }
+
+    private static void check(List<Long> values, Iterator<Long> it) {
+        List<Long> want = new ArrayList<Long>(values);
+        Collections.sort(want);
+        for (long v : want) {
+            assertTrue(it.hasNext());
+            assertEquals(v, (long) it.next());
+        }
+        assertFalse(it.hasNext());
+    }
+
+    @Test
+    public final void testInMemory() throws IOException {
+        ExternalSorter<Long> sorter = new ExternalSorter<Long>(new LongCodec(), 100);
+        List<Long> values = new ArrayList<Long>();
+        for (int i = 0; i < 100; ++i) {
+            values.add((long) rand.nextInt(1000));
+            sorter.add(values.get(i));
+        }
+        check(values, sorter.sort());
+        assertEquals(0, sorter.runs());
+        sorter.close();
+    }
+
+    @Test
+    public final void testRandom() throws IOException {
+        ExternalSorter<Long> sorter = sorter(1000);
+        List<Long> values = new ArrayList<Long>();
+        for (int i = 0; i < 100000; ++i) {
+            values.add(rand.nextLong());
+        }
+        sorter.addAll(values.iterator());
+        check(values, sorter.sort());
+        // replacement selection makes runs of about twice the memory size
+        assertTrue(sorter.runs() < 100000 / 1000);
+        assertTrue(0 < dir.listFiles().length);
+        sorter.close();
+        assertEquals(0, dir.listFiles().length);
+    }
+
+    @Test
+    public final void testSortedInput() throws IOException {
+        ExternalSorter<Long> ascending = sorter(100);
+        ExternalSorter<Long> descending = sorter(100);
+        List<Long> values = new ArrayList<Long>();
+        for (int i = 0; i < 10000; ++i) {
+            values.add((long) i);
+            ascending.add((long) i);
+            descending.add((long) (9999 - i));
+        }
+        check(values, ascending.sort());
+        check(values, descending.sort());
+        assertEquals(1, ascending.runs());
+        assertEquals(1, descending.runs());
+        ascending.close();
+        descending.close();
+    }
+
+    @Test
+    public final void testDuplicates() throws IOException {
+        ExternalSorter<Long> sorter = sorter(7);
+        List<Long> values = new ArrayList<Long>();
+        for (int i = 0; i < 5000; ++i) {
+            long v = rand.nextInt(10);
+            values.add(v);
+            sorter.add(v);
+        }
+        check(values, sorter.stream().iterator());
+        sorter.close();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public final void testAddAfterSort() throws IOException {
+        ExternalSorter<Long> sorter = sorter(10);
+        sorter.sort();
+        try {
+            sorter.add(1L);
+        }
+        finally {
+            sorter.close();
+        }
+    }
+
+    @Test
+    public final void testRandomWritesInBlocks() throws IOException {
+        // random input writes to the bottom and top files in turn, which must
+        // still fill each block before it is written
+        ExternalSorter<Long> sorter = sorter(100000);
+        List<Long> values = new ArrayList<Long>();
+        for (int i = 0; i < 400000; ++i) {
+            values.add(rand.nextLong());
+        }
+        sorter.addAll(values.iterator());
+        check(values, sorter.sort());
+        assertTrue(1 < sorter.runs() && sorter.runs() <= 3);
+        assertEquals(8L * 400000, sorter.bytesWritten());
+        assertTrue(sorter.bytesWritten() / sorter.blocksWritten() > 100000);
+        sorter.close();
+    }
+
+    @Test
+    public final void testManyRuns() throws IOException {
+        ExternalSorter<Long> sorter = sorter(4);
+        List<Long> values = new ArrayList<Long>();
+        for (int i = 0; i < 20000; ++i) {
+            values.add(rand.nextLong());
+        }
+        sorter.addAll(values.iterator());
+        Iterator<Long> it = sorter.sort();
+        // intermediate merges leave at most one pass of runs on disk
+        assertTrue(ExternalSorter.MAX_FAN_IN < sorter.runs());
+        assertTrue(dir.listFiles().length <= 2 * ExternalSorter.MAX_FAN_IN);
+        check(values, it);
+        sorter.close();
+        assertEquals(0, dir.listFiles().length);
+    }
+
+    @Test
+    public final void testCloseStream() throws IOException {
+        ExternalSorter<Long> sorter = sorter(10);
+        List<Long> values = new ArrayList<Long>();
+        for (int i = 0; i < 1000; ++i) {
+            values.add(rand.nextLong());
+        }
+        sorter.addAll(values.iterator());
+        Stream<Long> stream = sorter.stream();
+        try {
+            check(values, stream.iterator());
+            assertTrue(0 < dir.listFiles().length);
+        }
+        finally {
+            stream.close();
+        }
+        assertEquals(0, dir.listFiles().length);
+    }
+}
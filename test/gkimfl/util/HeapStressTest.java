@@ -1,12 +1,23 @@
 package gkimfl.util;
 
 import static gkimfl.util.HeapTest.assertIsHeap;
+import static gkimfl.util.HeapTest.assertIsMinHeap;
 import static gkimfl.util.HeapTest.TestItem;
 import static gkimfl.util.HeapTest.TestItemMutableInt;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
 import java.util.Random;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -59,4 +70,153 @@ public class HeapStressTest {
             assertIsHeap(heap);
         }
     }
+
+    @Test
+    public final void testDaryHeapStress() {
+        int count = 200000; // number of times to call offer and poll for each arity
+        for (int arity = 4; arity <= 16; arity <<= 1) {
+            heap = new Heap<TestItem>(0, new NaturalComparator<TestItem>(),
+                    new TestItemMutableInt(), arity);
+            for (int i = 0; i < count; ++i) {
+                if (!heap.isEmpty() && rand.nextBoolean()) {
+                    heap.poll();
+                }
+                else {
+                    heap.offer(new TestItem(rand.nextInt(1000)));
+                }
+                assertIsHeap(heap);
+            }
+            ArrayList<TestItem> items = new ArrayList<TestItem>();
+            for (int i = 0; i < 4 * heap.size(); ++i) {
+                items.add(new TestItem(rand.nextInt(1000)));
+            }
+            heap.addAll(items);
+            assertIsHeap(heap);
+            int prev = Integer.MIN_VALUE;
+            while (!heap.isEmpty()) {
+                TestItem item = heap.poll();
+                assertFalse(item.val < prev);
+                prev = item.val;
+            }
+        }
+    }
+
+    @Test
+    public final void testParallelHeapify() {
+        for (int arity = 2; arity <= 8; arity <<= 1) {
+            for (int size : new int[] { ParallelHeapify.THRESHOLD, 300007 }) {
+                ArrayList<TestItem> items = new ArrayList<TestItem>(size);
+                for (int j = 0; j < size; ++j) {
+                    items.add(new TestItem(rand.nextInt(10 * size)));
+                }
+                heap = new Heap<TestItem>(items, new NaturalComparator<TestItem>(),
+                        new MutableInt<TestItem>(), arity);
+                assertIsMinHeap(heap);
+            }
+        }
+    }
+
+    @Test
+    public final void testMergeStress() {
+        for (int n = 0; n < 70; n += 3) {
+            for (int m = 0; m < 70; m += 2) {
+                for (int arity = 2; arity <= 4; arity <<= 1) {
+                    heap = new Heap<TestItem>(0, new NaturalComparator<TestItem>(),
+                            new TestItemMutableInt(), arity);
+                    Heap<TestItem> other = new Heap<TestItem>();
+                    for (int i = 0; i < n; ++i) {
+                        heap.offer(new TestItem(rand.nextInt(100)));
+                    }
+                    for (int i = 0; i < m; ++i) {
+                        other.offer(new TestItem(rand.nextInt(100)));
+                    }
+                    if (rand.nextBoolean()) {
+                        heap.merge(other);
+                        assertEquals(m, other.size());
+                    }
+                    else {
+                        heap.meld(other);
+                        assertTrue(other.isEmpty());
+                    }
+                    assertEquals(n + m, heap.size());
+                    assertIsHeap(heap);
+                }
+            }
+        }
+        // steal the storage of a larger heap
+        Heap<Integer> small = new Heap<Integer>(Arrays.asList(5, 3));
+        Heap<Integer> large = new Heap<Integer>(Arrays.asList(9, 1, 7, 4, 8));
+        small.meld(large);
+        assertTrue(large.isEmpty());
+        int prev = Integer.MIN_VALUE;
+        while (!small.isEmpty()) {
+            int v = small.poll();
+            assertFalse(v < prev);
+            prev = v;
+        }
+    }
+
+    @Test
+    public final void testSortedIteratorStress() {
+        for (int arity = 2; arity <= 8; arity <<= 1) {
+            for (int n = 0; n < 300; ++n) {
+                ArrayList<TestItem> items = new ArrayList<TestItem>();
+                for (int i = 0; i < n; ++i) {
+                    items.add(new TestItem(rand.nextInt(1 + n / 2)));
+                }
+                heap = new Heap<TestItem>(items, new NaturalComparator<TestItem>(),
+                        new TestItemMutableInt(), arity);
+                Collections.sort(items);
+                Iterator<TestItem> it = heap.sortedIterator();
+                for (int i = 0; i < n; ++i) {
+                    assertEquals(items.get(i).val, it.next().val);
+                }
+                assertFalse(it.hasNext());
+            }
+        }
+    }
+
+    @Test
+    public final void testStreams() {
+        ArrayList<TestItem> items = new ArrayList<TestItem>();
+        long sum = 0;
+        for (int i = 0; i < 100000; ++i) {
+            int v = rand.nextInt(1000);
+            items.add(new TestItem(v));
+            sum += v;
+        }
+        heap = new Heap<TestItem>(items);
+        Spliterator<TestItem> split = heap.spliterator();
+        assertTrue(split.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED));
+        assertFalse(split.hasCharacteristics(Spliterator.ORDERED));
+        assertFalse(split.hasCharacteristics(Spliterator.NONNULL));
+        Spliterator<TestItem> prefix = split.trySplit();
+        assertEquals(100000, prefix.estimateSize() + split.estimateSize());
+        // the ranges are bound, so shrinking the heap fails fast
+        TestItem first = heap.poll();
+        try {
+            split.forEachRemaining(new Consumer<TestItem>() {
+                @Override
+                public void accept(TestItem item) {
+                }
+            });
+            fail();
+        }
+        catch (ConcurrentModificationException e) {
+        }
+        heap.offer(first);
+        assertEquals(sum, heap.parallelStream().mapToLong(new ToLongFunction<TestItem>() {
+            @Override
+            public long applyAsLong(TestItem item) {
+                return item.val;
+            }
+        }).sum());
+        Collections.sort(items);
+        Iterator<TestItem> sorted = heap.sortedStream().iterator();
+        for (TestItem item : items) {
+            assertEquals(item.val, sorted.next().val);
+        }
+        assertFalse(sorted.hasNext());
+        assertIsMinHeap(heap);
+    }
 }
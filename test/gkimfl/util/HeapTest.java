@@ -5,6 +5,7 @@ import static org.junit.Assert.*;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -57,7 +58,7 @@ public class HeapTest {
 
     public static void assertIsMinHeap(Heap<TestItem> h) {
         for (int i = 1; i < h.queue.size(); ++i) {
-            int iUp = (i - 1) >> 1;
+            int iUp = (i - 1) >> h.shift;
             TestItem v = h.queue.get(i);
             TestItem vUp = h.queue.get(iUp);
             if (h.cmp.compare(v, vUp) < 0) {
@@ -117,6 +118,17 @@ public class HeapTest {
         testIsInPosition();
     }
 
+    @Test
+    public void testAddAll() {
+        assertFalse(heap.addAll(new ArrayList<TestItem>()));
+        assertTrue(heap.addAll(Arrays.asList(new TestItem(9))));
+        heap = new Heap<TestItem>(new TestItemMutableInt());
+        assertFalse(heap.addAll(new ArrayList<TestItem>()));
+        assertTrue(heap.addAll(Arrays.asList(new TestItem(1), new TestItem(0))));
+        assertTrue(heap.peek().val == 0);
+        testIsInPosition();
+    }
+
     @Test
     public void testRemove() {
         ArrayList<TestItem> elements = new ArrayList<TestItem>(heap);
@@ -128,4 +140,16 @@ public class HeapTest {
             testIsInPosition();
         }
     }
+
+    @Test
+    public void testSortedIterator() {
+        Iterator<TestItem> it = heap.sortedIterator();
+        for (int i = 0; i <= 8; ++i) {
+            assertTrue(it.hasNext());
+            assertEquals(i, it.next().val);
+        }
+        assertFalse(it.hasNext());
+        assertEquals(9, heap.size());
+        testIsMinHeap();
+    }
 }
@@ -0,0 +1,119 @@
+package gkimfl.util;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class IndexedHeapTest {
+    Random rand = new Random();
+    IndexedHeap<Integer> heap;
+    int[] handles;
+
+    @Before
+    public void setUp() throws Exception {
+        heap = new IndexedHeap<Integer>(1);
+        handles = new int[9];
+        int[] values = { 1, 7, 5, 3, 8, 2, 4, 6, 0 };
+        for (int i = 0; i < values.length; ++i) {
+            handles[values[i]] = heap.insert(values[i]);
+        }
+    }
+
+    public static void assertIsHeap(IndexedHeap<Integer> h) {
+        for (int i = 0; i < h.size; ++i) {
+            assertEquals(i, h.pos[h.heap[i]]);
+            if (0 < i) {
+                assertFalse(h.get(h.heap[i]) < h.get(h.heap[(i - 1) >> 1]));
+            }
+        }
+    }
+
+    @Test
+    public final void testPoll() {
+        assertIsHeap(heap);
+        for (int i = 0; i <= 8; ++i) {
+            assertEquals(handles[i], heap.peekHandle());
+            assertEquals(i, (int) heap.poll());
+            assertFalse(heap.containsHandle(handles[i]));
+            assertIsHeap(heap);
+        }
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    public final void testRemove() {
+        assertEquals(5, (int) heap.removeHandle(handles[5]));
+        assertEquals(0, (int) heap.removeHandle(handles[0]));
+        assertTrue(heap.remove((Object) 8));
+        assertFalse(heap.remove((Object) 8));
+        // the value 0 is gone, but its number is still the handle of 1
+        assertFalse(heap.contains(0));
+        assertTrue(heap.containsHandle(0));
+        assertIsHeap(heap);
+        for (int i : new int[] { 1, 2, 3, 4, 6, 7 }) {
+            assertEquals(i, (int) heap.poll());
+        }
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    public final void testKeys() {
+        heap.decreaseKey(handles[8], -1);
+        assertEquals(handles[8], heap.peekHandle());
+        heap.increaseKey(handles[8], 10);
+        heap.update(handles[3], -2);
+        assertIsHeap(heap);
+        assertEquals(-2, (int) heap.poll());
+        assertEquals(0, (int) heap.poll());
+        try {
+            heap.decreaseKey(handles[8], 11);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+        }
+        try {
+            heap.get(handles[3]);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public final void testStress() {
+        int count = 100000;
+        heap.clear();
+        ArrayList<Integer> live = new ArrayList<Integer>();
+        for (int i = 0; i < count; ++i) {
+            int op = rand.nextInt(4);
+            if (live.isEmpty() || op == 0) {
+                live.add(heap.insert(rand.nextInt(1000)));
+            }
+            else if (op == 1) {
+                int h = live.remove(rand.nextInt(live.size()));
+                heap.removeHandle(h);
+            }
+            else if (op == 2) {
+                int h = live.get(rand.nextInt(live.size()));
+                heap.update(h, rand.nextInt(1000));
+            }
+            else {
+                int[] sorted = new int[live.size()];
+                for (int k = 0; k < sorted.length; ++k) {
+                    sorted[k] = heap.get(live.get(k));
+                }
+                Arrays.sort(sorted);
+                int h = heap.peekHandle();
+                assertEquals(sorted[0], (int) heap.poll());
+                live.remove((Integer) h);
+            }
+            assertEquals(live.size(), heap.size());
+        }
+        assertIsHeap(heap);
+    }
+}
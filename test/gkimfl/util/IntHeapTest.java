@@ -0,0 +1,75 @@
+package gkimfl.util;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class IntHeapTest {
+    Random rand = new Random();
+    IntHeap heap;
+
+    @Before
+    public void setUp() {
+        heap = new IntHeap(new int[] { 4, 1, 5, 7, 3, 8, 6, 2, 0 });
+    }
+
+    public static void assertIsMinHeap(IntHeap h) {
+        for (int i = 1; i < h.size; ++i) {
+            int iUp = (i - 1) >> 1;
+            assertFalse(h.queue[i] < h.queue[iUp]);
+        }
+    }
+
+    @Test
+    public void testIsMinHeap() {
+        assertIsMinHeap(heap);
+    }
+
+    @Test
+    public void testPoll() {
+        for (int i = 0; i <= 8; ++i) {
+            assertTrue(heap.peek() == i);
+            assertTrue(heap.poll() == i);
+        }
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    public void testOffer() {
+        heap = new IntHeap(1);
+        heap.offer(4);
+        heap.offer(1);
+        heap.offer(5);
+        heap.offer(7);
+        heap.offer(3);
+        heap.offer(8);
+        heap.offer(6);
+        heap.offer(2);
+        heap.offer(0);
+        testIsMinHeap();
+        testPoll();
+    }
+
+    @Test
+    public void testAddAllStress() {
+        int count = 1000; // number of times to call addAll
+        for (int i = 0; i < count; ++i) {
+            int[] values = new int[rand.nextInt(2 * i + 1)];
+            for (int j = 0; j < values.length; ++j) {
+                values[j] = rand.nextInt(10 * i + 1);
+            }
+            assertEquals(values.length != 0, heap.addAll(values));
+            assertIsMinHeap(heap);
+        }
+        int[] sorted = heap.toArray();
+        Arrays.sort(sorted);
+        for (int i = 0; i < sorted.length; ++i) {
+            assertTrue(heap.poll() == sorted[i]);
+        }
+        assertTrue(heap.isEmpty());
+    }
+}
@@ -0,0 +1,146 @@
+package gkimfl.util;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import gkimfl.util.HeapTest.TestItem;
+import gkimfl.util.HeapTest.TestItemMutableInt;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class IntervalHeapRemoveTest {
+    Random rand = new Random();
+    IntervalHeap<TestItem> heap;
+    ArrayList<TestItem> items;
+
+    @Before
+    public void setUp() throws Exception {
+        items = new ArrayList<TestItem>();
+        for (int v : new int[] { 1, 7, 5, 3, 8, 2, 4, 6, 0 }) {
+            items.add(new TestItem(v));
+        }
+        heap = new IntervalHeap<TestItem>(items, new NaturalComparator<TestItem>(),
+                new TestItemMutableInt());
+    }
+
+    public static void assertIsHeap(IntervalHeap<TestItem> h) {
+        int size = h.size();
+        for (int i = 0; i < size; ++i) {
+            TestItem v = h.queue.get(i);
+            assertEquals(i, v.pos);
+            if (2 <= i && (i & 1) == 0) {
+                assertFalse(v.val < h.queue.get(((i >> 1) - 1) & ~1).val);
+            }
+            if (2 <= i && ((i & 1) == 1 || i + 1 == size)) {
+                assertFalse(v.val > h.queue.get(((i >> 1) - 1) | 1).val);
+            }
+            if ((i & 1) == 1) {
+                assertFalse(v.val < h.queue.get(i - 1).val);
+            }
+        }
+    }
+
+    @Test
+    public final void testRemove() {
+        assertIsHeap(heap);
+        for (int v : new int[] { 4, 0, 8, 1, 7, 6, 2, 5, 3 }) {
+            assertTrue(heap.remove(items.get(indexOf(v))));
+            assertIsHeap(heap);
+        }
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    public final void testUpdate() {
+        TestItem item = items.get(indexOf(4));
+        item.val = -1;
+        heap.update(item);
+        assertIsHeap(heap);
+        assertSame(item, heap.peekFirst());
+        item.val = 9;
+        heap.update(item);
+        assertIsHeap(heap);
+        assertSame(item, heap.peekLast());
+        item.val = 4;
+        heap.update(item);
+        assertIsHeap(heap);
+        for (int i = 0; i <= 8; ++i) {
+            assertEquals(i, heap.pollFirst().val);
+            assertIsHeap(heap);
+        }
+    }
+
+    @Test
+    public final void testStress() {
+        int count = 100000;
+        heap.clear();
+        ArrayList<TestItem> live = new ArrayList<TestItem>();
+        for (int i = 0; i < count; ++i) {
+            int op = rand.nextInt(5);
+            if (live.isEmpty() || op == 0) {
+                TestItem item = new TestItem(rand.nextInt(1000));
+                live.add(item);
+                heap.offer(item);
+            }
+            else if (op == 1) {
+                TestItem item = live.remove(rand.nextInt(live.size()));
+                heap.remove(item);
+            }
+            else if (op == 2) {
+                TestItem item = live.get(rand.nextInt(live.size()));
+                item.val = rand.nextInt(1000);
+                heap.update(item);
+            }
+            else if (op == 3) {
+                live.remove(heap.pollFirst());
+            }
+            else {
+                live.remove(heap.pollLast());
+            }
+            assertEquals(live.size(), heap.size());
+            if ((i & 1023) == 0) {
+                assertIsHeap(heap);
+            }
+        }
+        assertIsHeap(heap);
+    }
+
+    @Test
+    public final void testSmall() {
+        // exercise every position of every small heap
+        for (int n = 1; n < 40; ++n) {
+            for (int k = 0; k < n; ++k) {
+                for (int trial = 0; trial < 20; ++trial) {
+                    heap.clear();
+                    items.clear();
+                    for (int i = 0; i < n; ++i) {
+                        TestItem item = new TestItem(rand.nextInt(20));
+                        items.add(item);
+                        heap.offer(item);
+                    }
+                    TestItem item = heap.queue.get(k);
+                    if (trial % 2 == 0) {
+                        heap.remove(item);
+                    }
+                    else {
+                        item.val = rand.nextInt(20);
+                        heap.update(item);
+                    }
+                    assertIsHeap(heap);
+                }
+            }
+        }
+    }
+
+    private int indexOf(int v) {
+        for (int i = 0; i < items.size(); ++i) {
+            if (items.get(i).val == v) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -1,10 +1,17 @@
 package gkimfl.util;
 
 import static gkimfl.util.IntervalHeapTest.assertIsHeap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.Random;
+import java.util.Spliterator;
+import java.util.function.ToLongFunction;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -64,4 +71,96 @@ public class IntervalHeapStressTest {
             assertIsHeap(heap);
         }
     }
+
+    @Test
+    public final void testParallelHeapify() {
+        for (int size : new int[] { ParallelHeapify.THRESHOLD, 300007, 300008 }) {
+            ArrayList<Integer> values = new ArrayList<Integer>(size);
+            for (int j = 0; j < size; ++j) {
+                values.add(rand.nextInt(10 * size));
+            }
+            heap = new IntervalHeap<Integer>(values);
+            assertIsHeap(heap);
+        }
+    }
+
+    @Test
+    public final void testMergeStress() {
+        for (int n = 0; n < 70; n += 3) {
+            for (int m = 0; m < 70; m += 2) {
+                heap = new IntervalHeap<Integer>();
+                IntervalHeap<Integer> other = new IntervalHeap<Integer>();
+                for (int i = 0; i < n; ++i) {
+                    heap.offer(rand.nextInt(100));
+                }
+                for (int i = 0; i < m; ++i) {
+                    other.offer(rand.nextInt(100));
+                }
+                if (rand.nextBoolean()) {
+                    heap.merge(other);
+                    assertEquals(m, other.size());
+                }
+                else {
+                    heap.meld(other);
+                    assertTrue(other.isEmpty());
+                }
+                assertEquals(n + m, heap.size());
+                assertIsHeap(heap);
+            }
+        }
+    }
+
+    @Test
+    public final void testSortedIteratorStress() {
+        for (int n = 0; n < 300; ++n) {
+            heap = new IntervalHeap<Integer>();
+            ArrayList<Integer> items = new ArrayList<Integer>();
+            for (int i = 0; i < n; ++i) {
+                int v = rand.nextInt(1 + n / 2);
+                heap.offer(v);
+                items.add(v);
+            }
+            Collections.sort(items);
+            Iterator<Integer> ascending = heap.sortedIterator();
+            Iterator<Integer> descending = heap.descendingIterator();
+            for (int i = 0; i < n; ++i) {
+                assertEquals(items.get(i), ascending.next());
+                assertEquals(items.get(n - 1 - i), descending.next());
+            }
+            assertFalse(ascending.hasNext());
+            assertFalse(descending.hasNext());
+        }
+    }
+
+    @Test
+    public final void testStreams() {
+        ArrayList<Integer> items = new ArrayList<Integer>();
+        long sum = 0;
+        for (int i = 0; i < 100000; ++i) {
+            int v = rand.nextInt(1000);
+            items.add(v);
+            sum += v;
+        }
+        heap = new IntervalHeap<Integer>(items);
+        Spliterator<Integer> split = heap.spliterator();
+        assertTrue(split.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED));
+        assertFalse(split.hasCharacteristics(Spliterator.ORDERED));
+        assertFalse(split.hasCharacteristics(Spliterator.NONNULL));
+        heap.offer(0);
+        assertEquals(100001, split.estimateSize());
+        heap.poll();
+        assertEquals(sum, heap.parallelStream().mapToLong(new ToLongFunction<Integer>() {
+            @Override
+            public long applyAsLong(Integer v) {
+                return v;
+            }
+        }).sum());
+        Collections.sort(items);
+        Iterator<Integer> sorted = heap.sortedStream().iterator();
+        for (Integer v : items) {
+            assertEquals(v, sorted.next());
+        }
+        assertFalse(sorted.hasNext());
+        assertIsHeap(heap);
+    }
 }
@@ -3,6 +3,7 @@ package gkimfl.util;
 import static org.junit.Assert.*;
 
 import java.util.Arrays;
+import java.util.Iterator;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -100,4 +101,27 @@ public class IntervalHeapTest {
         assertTrue(heap.pollLast() == 1);
         assertTrue(heap.pollLast() == 0);
     }
+
+    @Test
+    public final void testSortedIterator() {
+        Iterator<Integer> it = heap.sortedIterator();
+        for (int i = 0; i <= 8; ++i) {
+            assertTrue(it.hasNext());
+            assertEquals(i, (int) it.next());
+        }
+        assertFalse(it.hasNext());
+        assertEquals(9, heap.size());
+        assertIsHeap(heap);
+    }
+
+    @Test
+    public final void testDescendingIterator() {
+        Iterator<Integer> it = heap.descendingIterator();
+        for (int i = 8; i >= 0; --i) {
+            assertTrue(it.hasNext());
+            assertEquals(i, (int) it.next());
+        }
+        assertFalse(it.hasNext());
+        assertEquals(9, heap.size());
+    }
 }
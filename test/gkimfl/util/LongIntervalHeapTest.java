@@ -0,0 +1,106 @@
+package gkimfl.util;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class LongIntervalHeapTest {
+    Random rand = new Random();
+    LongIntervalHeap heap;
+
+    @Before
+    public void setUp() throws Exception {
+        heap = new LongIntervalHeap(new long[] { 1, 7, 5, 3, 8, 2, 4, 6, 0 });
+    }
+
+    public static void assertIsHeap(LongIntervalHeap h) {
+        long[] q = h.queue;
+        for (int i = 2; i < h.size; ++i) {
+            if ((i & 1) == 0) {
+                assertFalse(q[i] < q[((i >> 1) - 1) & ~1]);
+            }
+            if ((i & 1) == 1 || i + 1 == h.size) {
+                assertFalse(q[i] > q[((i >> 1) - 1) | 1]);
+            }
+        }
+        for (int i = 0; i + 1 < h.size; i += 2) {
+            assertFalse(q[i + 1] < q[i]);
+        }
+    }
+
+    @Test
+    public final void testOffer() {
+        heap = new LongIntervalHeap(1);
+        heap.offer(1);
+        heap.offer(7);
+        heap.offer(5);
+        heap.offer(3);
+        heap.offer(8);
+        heap.offer(2);
+        heap.offer(4);
+        heap.offer(6);
+        heap.offer(0);
+        assertIsHeap(heap);
+    }
+
+    @Test
+    public final void testPollMin() {
+        for (int i = 0; i <= 8; ++i) {
+            assertTrue(heap.pollFirst() == i);
+            assertIsHeap(heap);
+        }
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    public final void testPollMax() {
+        for (int i = 8; i >= 0; --i) {
+            assertTrue(heap.pollLast() == i);
+            assertIsHeap(heap);
+        }
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    public final void testStress() {
+        int count = 100000; // number of times to call offer, pollFirst, and pollLast
+        heap.clear();
+        for (int i = 0; i < count; ++i) {
+            if (!heap.isEmpty() && rand.nextBoolean()) {
+                long[] sorted = heap.toArray();
+                Arrays.sort(sorted);
+                if (rand.nextBoolean()) {
+                    assertTrue(heap.pollFirst() == sorted[0]);
+                }
+                else {
+                    assertTrue(heap.pollLast() == sorted[sorted.length - 1]);
+                }
+            }
+            else {
+                heap.offer(rand.nextInt(100));
+            }
+            assertIsHeap(heap);
+            if (i % 10000 == 0) {
+                heap.clear();
+            }
+        }
+    }
+
+    @Test
+    public final void testHeapifyStress() {
+        int count = 2000; // number of times to heapify
+        for (int size = 0; size < count; ++size) {
+            long[] values = new long[size];
+            for (int j = 0; j < size; ++j) {
+                values[j] = rand.nextInt(10 * size);
+            }
+            heap.clear();
+            heap.addAll(values);
+            assertIsHeap(heap);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package gkimfl.util;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LoserTreeTest {
+    Random rand = new Random();
+
+    static final LongKey<long[]> FIRST = new LongKey<long[]>() {
+        @Override
+        public long get(long[] o) {
+            return o[0];
+        }
+    };
+
+    static final Comparator<long[]> BY_FIRST = new Comparator<long[]>() {
+        @Override
+        public int compare(long[] a, long[] b) {
+            return Long.compare(a[0], b[0]);
+        }
+    };
+
+    @Test
+    public final void testMerge() {
+        List<Iterator<Integer>> sources = new ArrayList<Iterator<Integer>>();
+        sources.add(Arrays.asList(1, 4, 7).iterator());
+        sources.add(Collections.<Integer> emptyList().iterator());
+        sources.add(Arrays.asList(0, 2, 8, 9).iterator());
+        sources.add(Arrays.asList(3, 5, 6).iterator());
+        LoserTree<Integer> merge = new LoserTree<Integer>(sources);
+        for (int i = 0; i < 10; ++i) {
+            assertTrue(merge.hasNext());
+            assertEquals(i, (int) merge.next());
+        }
+        assertFalse(merge.hasNext());
+        try {
+            merge.next();
+            fail();
+        }
+        catch (NoSuchElementException e) {
+        }
+    }
+
+    @Test
+    public final void testEmpty() {
+        List<Iterator<Integer>> sources = new ArrayList<Iterator<Integer>>();
+        assertFalse(new LoserTree<Integer>(sources).hasNext());
+        sources.add(Arrays.asList(5, 6).iterator());
+        LoserTree<Integer> merge = new LoserTree<Integer>(sources);
+        assertEquals(5, (int) merge.next());
+        assertEquals(6, (int) merge.next());
+        assertFalse(merge.hasNext());
+    }
+
+    @Test
+    public final void testStream() {
+        List<Iterator<Integer>> sources = new ArrayList<Iterator<Integer>>();
+        sources.add(Arrays.asList(1, 3, 5).iterator());
+        sources.add(Arrays.asList(2, 4, 6).iterator());
+        Object[] merged = new LoserTree<Integer>(sources).stream().toArray();
+        assertArrayEquals(new Object[] { 1, 2, 3, 4, 5, 6 }, merged);
+    }
+
+    @Test
+    public final void testStress() {
+        for (int k = 1; k <= 100; k += 1 + k / 4) {
+            List<long[]> all = new ArrayList<long[]>();
+            List<Iterator<long[]>> byCmp = new ArrayList<Iterator<long[]>>();
+            List<Iterator<long[]>> byKey = new ArrayList<Iterator<long[]>>();
+            for (int s = 0; s < k; ++s) {
+                List<long[]> run = new ArrayList<long[]>();
+                for (int i = rand.nextInt(50); 0 < i; --i) {
+                    // few distinct keys, to check that equal keys keep the
+                    // order of their sources
+                    run.add(new long[] { rand.nextInt(20), s });
+                }
+                Collections.sort(run, BY_FIRST);
+                all.addAll(run);
+                byCmp.add(run.iterator());
+                byKey.add(run.iterator());
+            }
+            Collections.sort(all, new Comparator<long[]>() {
+                @Override
+                public int compare(long[] a, long[] b) {
+                    int c = Long.compare(a[0], b[0]);
+                    return c != 0 ? c : Long.compare(a[1], b[1]);
+                }
+            });
+            LoserTree<long[]> mergeCmp = new LoserTree<long[]>(byCmp, BY_FIRST);
+            LoserTree<long[]> mergeKey = new LoserTree<long[]>(byKey, FIRST);
+            for (long[] v : all) {
+                long[] a = mergeCmp.next();
+                long[] b = mergeKey.next();
+                assertEquals(v[0], a[0]);
+                assertEquals(v[1], a[1]);
+                assertEquals(v[0], b[0]);
+                assertEquals(v[1], b[1]);
+            }
+            assertFalse(mergeCmp.hasNext());
+            assertFalse(mergeKey.hasNext());
+        }
+    }
+}
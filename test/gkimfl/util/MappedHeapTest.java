@@ -0,0 +1,145 @@
+package gkimfl.util;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MappedHeapTest {
+    Random rand = new Random();
+    File file;
+    MappedHeap<Long> heap;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("MappedHeapTest", ".heap");
+        file.delete();
+        heap = new MappedHeap<Long>(file, new LongCodec());
+        for (long v : new long[] { 4, 1, 5, 7, 3, 8, 6, 2, 0 }) {
+            heap.offer(v);
+        }
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        heap.close();
+        file.delete();
+        new File(file.getPath() + ".journal").delete();
+    }
+
+    public static void assertIsMinHeap(MappedHeap<Long> h) {
+        ArrayList<Long> q = new ArrayList<Long>(h);
+        for (int i = 1; i < q.size(); ++i) {
+            assertFalse(q.get(i) < q.get((i - 1) >> 1));
+        }
+    }
+
+    @Test
+    public void testPoll() {
+        for (long i = 0; i <= 8; ++i) {
+            assertTrue(heap.poll() == i);
+            assertIsMinHeap(heap);
+        }
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    public void testReopen() throws IOException {
+        heap.close();
+        heap = new MappedHeap<Long>(file, new LongCodec());
+        assertTrue(heap.size() == 9);
+        testPoll();
+    }
+
+    @Test
+    public void testRemove() throws IOException {
+        heap.close();
+        heap = new MappedHeap<Long>(file, new LongCodec());
+        ArrayList<Long> elements = new ArrayList<Long>(heap);
+        Collections.shuffle(elements);
+        for (Long elem : elements) {
+            assertTrue(heap.removeElem(elem));
+            assertFalse(heap.contains(elem));
+            assertFalse(heap.removeElem(elem));
+            assertIsMinHeap(heap);
+        }
+        assertTrue(heap.isEmpty());
+    }
+
+    /**
+     * Rewrite the closed heap files as a crash would have left them after the
+     * first k records of the last operation were overwritten: the records
+     * journaled after those still hold their old contents, the size is not
+     * yet updated, and the journal is still active.
+     */
+    void crashAfter(int k) throws IOException {
+        RandomAccessFile data = new RandomAccessFile(file, "rw");
+        RandomAccessFile journal = new RandomAccessFile(file.getPath() + ".journal", "rw");
+        try {
+            int width = 8;
+            int n = readInt(journal, MappedHeap.J_COUNT);
+            byte[] record = new byte[width];
+            for (int j = k; j < n; ++j) {
+                long entry = MappedHeap.J_ENTRIES + (long) j * (4 + width);
+                int i = readInt(journal, entry);
+                journal.seek(entry + 4);
+                journal.readFully(record);
+                data.seek(MappedHeap.HEADER + (long) i * width);
+                data.write(record);
+            }
+            data.seek(MappedHeap.H_SIZE);
+            data.writeInt(readInt(journal, MappedHeap.J_SIZE));
+            journal.seek(MappedHeap.J_COUNT);
+            journal.writeInt(k);
+            journal.seek(MappedHeap.J_STATE);
+            journal.writeInt(MappedHeap.J_ACTIVE);
+        }
+        finally {
+            data.close();
+            journal.close();
+        }
+    }
+
+    static int readInt(RandomAccessFile f, long position) throws IOException {
+        f.seek(position);
+        return f.readInt();
+    }
+
+    @Test
+    public void testRecover() throws IOException {
+        int count = 500; // number of interrupted operations
+        for (int i = 0; i < 1000; ++i) {
+            heap.offer((long) rand.nextInt());
+        }
+        for (int i = 0; i < count; ++i) {
+            ArrayList<Long> before = new ArrayList<Long>(heap);
+            if (rand.nextBoolean()) {
+                heap.offer((long) rand.nextInt());
+            }
+            else {
+                heap.poll();
+            }
+            heap.close();
+            RandomAccessFile journal = new RandomAccessFile(file.getPath() + ".journal", "r");
+            int n;
+            try {
+                n = readInt(journal, MappedHeap.J_COUNT);
+            }
+            finally {
+                journal.close();
+            }
+            crashAfter(rand.nextInt(n + 1));
+            heap = new MappedHeap<Long>(file, new LongCodec());
+            assertEquals(before, new ArrayList<Long>(heap));
+            assertIsMinHeap(heap);
+        }
+    }
+}
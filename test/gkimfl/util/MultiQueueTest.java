@@ -0,0 +1,108 @@
+package gkimfl.util;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class MultiQueueTest {
+    MultiQueue<Integer> queue;
+
+    @Before
+    public void setUp() throws Exception {
+        queue = new MultiQueue<Integer>(16);
+    }
+
+    @Test
+    public final void testRankError() {
+        int count = 100000; // number of elements to insert and remove
+        List<Integer> values = new ArrayList<Integer>(count);
+        for (int i = 0; i < count; ++i) {
+            values.add(i);
+        }
+        Collections.shuffle(values);
+        queue.addAll(values);
+        assertTrue(queue.size() == count);
+
+        // rank of each polled value among the remaining values, counted with
+        // a binary indexed tree over the values still present
+        int[] tree = new int[count + 1];
+        for (int i = 1; i <= count; ++i) {
+            tree[i] += 1;
+            int j = i + (i & -i);
+            if (j <= count) {
+                tree[j] += tree[i];
+            }
+        }
+        long rankSum = 0;
+        int rankMax = 0;
+        for (int i = 0; i < count; ++i) {
+            int v = queue.poll();
+            int rank = 0;
+            for (int j = v; 0 < j; j -= j & -j) {
+                rank += tree[j];
+            }
+            for (int j = v + 1; j <= count; j += j & -j) {
+                tree[j] -= 1;
+            }
+            rankSum += rank;
+            rankMax = Math.max(rankMax, rank);
+        }
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+        double rankMean = (double) rankSum / count;
+        // the expected rank is O(k) for k shards, and large ranks are
+        // exponentially unlikely
+        assertTrue(rankMean < 2 * 16);
+        assertTrue(rankMax < 64 * 16);
+    }
+
+    @Test
+    public final void testConcurrent() throws InterruptedException {
+        final int threads = 8;
+        final int count = 100000; // elements inserted by each thread
+        final List<List<Integer>> polled = new ArrayList<List<Integer>>();
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; ++t) {
+            final int id = t;
+            final List<Integer> mine = new ArrayList<Integer>();
+            polled.add(mine);
+            workers[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < count; ++i) {
+                        queue.offer(i * threads + id);
+                        if ((i & 1) == 1) {
+                            Integer v = queue.poll();
+                            if (v != null) {
+                                mine.add(v);
+                            }
+                        }
+                    }
+                }
+            };
+        }
+        for (Thread w : workers) {
+            w.start();
+        }
+        for (Thread w : workers) {
+            w.join();
+        }
+        List<Integer> all = new ArrayList<Integer>();
+        for (List<Integer> mine : polled) {
+            all.addAll(mine);
+        }
+        while (!queue.isEmpty()) {
+            all.add(queue.poll());
+        }
+        Collections.sort(all);
+        assertTrue(all.size() == threads * count);
+        for (int i = 0; i < all.size(); ++i) {
+            assertTrue(all.get(i) == i);
+        }
+    }
+}
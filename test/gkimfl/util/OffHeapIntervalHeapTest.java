@@ -0,0 +1,115 @@
+package gkimfl.util;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class OffHeapIntervalHeapTest {
+    Random rand = new Random();
+    OffHeapIntervalHeap<Long> heap;
+
+    @Before
+    public void setUp() throws Exception {
+        // two records per chunk, so that every path crosses chunks
+        heap = new OffHeapIntervalHeap<Long>(0, new LongCodec(), 1);
+        heap.addAll(Arrays.asList(new Long[] { 1L, 7L, 5L, 3L, 8L, 2L, 4L, 6L, 0L }));
+    }
+
+    public static void assertIsHeap(OffHeapIntervalHeap<Long> h) {
+        ArrayList<Long> q = new ArrayList<Long>(h);
+        for (int i = 2; i < q.size(); ++i) {
+            if ((i & 1) == 0) {
+                assertFalse(q.get(i) < q.get(((i >> 1) - 1) & ~1));
+            }
+            if ((i & 1) == 1 || i + 1 == q.size()) {
+                assertFalse(q.get(i) > q.get(((i >> 1) - 1) | 1));
+            }
+        }
+        for (int i = 0; i + 1 < q.size(); i += 2) {
+            assertFalse(q.get(i + 1) < q.get(i));
+        }
+    }
+
+    @Test
+    public final void testOffer() {
+        heap.clear();
+        for (long v : new long[] { 1, 7, 5, 3, 8, 2, 4, 6, 0 }) {
+            heap.offer(v);
+            assertIsHeap(heap);
+        }
+        assertTrue(heap.size() == 9);
+    }
+
+    @Test
+    public final void testClear() {
+        heap.clear();
+        assertTrue(heap.chunks.length == 0);
+        assertTrue(heap.longSize() == 0);
+        heap.offer(3L);
+        heap.offer(1L);
+        heap.offer(2L);
+        assertIsHeap(heap);
+        assertTrue(heap.pollFirst() == 1);
+        assertTrue(heap.pollLast() == 3);
+    }
+
+    @Test
+    public final void testPollMin() {
+        for (long i = 0; i <= 8; ++i) {
+            assertTrue(heap.pollFirst() == i);
+            assertIsHeap(heap);
+        }
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    public final void testPollMax() {
+        for (long i = 8; i >= 0; --i) {
+            assertTrue(heap.pollLast() == i);
+            assertIsHeap(heap);
+        }
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    public final void testStress() {
+        int count = 100000; // number of times to call offer, pollFirst, and pollLast
+        IntervalHeap<Long> expect = new IntervalHeap<Long>(heap);
+        for (int i = 0; i < count; ++i) {
+            if (!heap.isEmpty() && rand.nextBoolean()) {
+                if (rand.nextBoolean()) {
+                    assertEquals(expect.pollFirst(), heap.pollFirst());
+                }
+                else {
+                    assertEquals(expect.pollLast(), heap.pollLast());
+                }
+            }
+            else {
+                long value = rand.nextInt(1000);
+                expect.offer(value);
+                heap.offer(value);
+            }
+            assertTrue(expect.size() == heap.size());
+        }
+        assertIsHeap(heap);
+    }
+
+    @Test
+    public final void testHeapifyStress() {
+        int count = 1000; // number of times to heapify
+        for (int size = 0; size < count; ++size) {
+            ArrayList<Long> values = new ArrayList<Long>(size);
+            for (int j = 0; j < size; ++j) {
+                values.add((long) rand.nextInt(10 * size));
+            }
+            heap.clear();
+            heap.addAll(values);
+            assertIsHeap(heap);
+        }
+    }
+}
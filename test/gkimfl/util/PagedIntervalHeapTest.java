@@ -0,0 +1,131 @@
+package gkimfl.util;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class PagedIntervalHeapTest {
+    Random rand = new Random();
+    PagedIntervalHeap<Integer> heap;
+
+    @Before
+    public void setUp() throws Exception {
+        heap = new PagedIntervalHeap<Integer>(0, new NaturalComparator<Integer>(), 2);
+        heap.addAll(Arrays.asList(1, 7, 5, 3, 8, 2, 4, 6, 0));
+    }
+
+    public static void assertIsHeap(PagedIntervalHeap<Integer> h) {
+        for (int i = 2; i < h.size; ++i) {
+            if ((i & 1) == 0) {
+                assertFalse(h.get(i) < h.get(((i >> 1) - 1) & ~1));
+            }
+            if ((i & 1) == 1 || i + 1 == h.size) {
+                assertFalse(h.get(i) > h.get(((i >> 1) - 1) | 1));
+            }
+        }
+        for (int i = 0; i + 1 < h.size; i += 2) {
+            assertFalse(h.get(i + 1) < h.get(i));
+        }
+    }
+
+    @Test
+    public final void testLayout() {
+        for (int levels = 1; levels <= 4; ++levels) {
+            PagedIntervalHeap<Integer> h = new PagedIntervalHeap<Integer>(0,
+                    new NaturalComparator<Integer>(), levels);
+            for (int n = 1; n < 600; ++n) {
+                h.ensureCapacity(n);
+                HashSet<Integer> seen = new HashSet<Integer>();
+                for (int i = 0; i < h.capacity; ++i) {
+                    assertTrue(seen.add(h.index(i)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public final void testOffer() {
+        heap = new PagedIntervalHeap<Integer>(1, new NaturalComparator<Integer>(), 2);
+        for (int e : new int[] { 1, 7, 5, 3, 8, 2, 4, 6, 0 }) {
+            heap.offer(e);
+            assertIsHeap(heap);
+        }
+    }
+
+    @Test
+    public final void testInitialCapacity() {
+        heap = new PagedIntervalHeap<Integer>(100);
+        assertTrue(100 <= heap.capacity);
+        for (int e : new int[] { 1, 7, 5, 3, 8, 2, 4, 6, 0 }) {
+            heap.offer(e);
+        }
+        assertIsHeap(heap);
+        assertEquals(0, (int) heap.pollFirst());
+        assertEquals(8, (int) heap.pollLast());
+    }
+
+    @Test
+    public final void testPollMin() {
+        for (int i = 0; i <= 8; ++i) {
+            assertEquals(i, (int) heap.pollFirst());
+            assertIsHeap(heap);
+        }
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    public final void testPollMax() {
+        for (int i = 8; i >= 0; --i) {
+            assertEquals(i, (int) heap.pollLast());
+            assertIsHeap(heap);
+        }
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    public final void testHeapify() {
+        for (int n = 0; n < 300; ++n) {
+            ArrayList<Integer> values = new ArrayList<Integer>();
+            for (int i = 0; i < n; ++i) {
+                values.add(rand.nextInt(100));
+            }
+            heap = new PagedIntervalHeap<Integer>(values);
+            assertIsHeap(heap);
+            Collections.sort(values);
+            for (int i = 0; i < n; ++i) {
+                assertEquals(values.get(i), heap.pollFirst());
+            }
+        }
+    }
+
+    @Test
+    public final void testStress() {
+        int count = 100000; // number of times to call offer, pollFirst, and pollLast
+        IntervalHeap<Integer> check = new IntervalHeap<Integer>();
+        heap.clear();
+        for (int i = 0; i < count; ++i) {
+            if (!heap.isEmpty() && rand.nextBoolean()) {
+                if (rand.nextBoolean()) {
+                    assertEquals(check.pollFirst(), heap.pollFirst());
+                }
+                else {
+                    assertEquals(check.pollLast(), heap.pollLast());
+                }
+            }
+            else {
+                int e = rand.nextInt(1000);
+                check.offer(e);
+                heap.offer(e);
+            }
+            assertEquals(check.size(), heap.size());
+        }
+        assertIsHeap(heap);
+    }
+}
@@ -0,0 +1,237 @@
+package gkimfl.util;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class PairingHeapTest {
+    Random rand = new Random();
+    PairingHeap<Integer> heap;
+
+    @Before
+    public void setUp() throws Exception {
+        heap = new PairingHeap<Integer>();
+        for (int v : new int[] { 1, 7, 5, 3, 8, 2, 4, 6, 0 }) {
+            heap.offer(v);
+        }
+    }
+
+    public static void assertIsHeap(PairingHeap<Integer> h) {
+        int count = 0;
+        if (h.root != null) {
+            assertNull(h.root.prev);
+            assertNull(h.root.sibling);
+            count = assertIsTree(h.root);
+        }
+        assertEquals(h.size(), count);
+    }
+
+    private static int assertIsTree(PairingHeap.Node<Integer> node) {
+        int count = 1;
+        PairingHeap.Node<Integer> prev = node;
+        for (PairingHeap.Node<Integer> c = node.child; c != null; c = c.sibling) {
+            assertSame(prev, c.prev);
+            assertFalse(c.get() < node.get());
+            count += assertIsTree(c);
+            prev = c;
+        }
+        return count;
+    }
+
+    @Test
+    public final void testPoll() {
+        for (int i = 0; i <= 8; ++i) {
+            assertEquals(i, (int) heap.poll());
+            assertIsHeap(heap);
+        }
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    public final void testNodes() {
+        PairingHeap.Node<Integer> node = heap.insert(10);
+        heap.decreaseKey(node, -1);
+        assertSame(node, heap.peekNode());
+        assertIsHeap(heap);
+        PairingHeap.Node<Integer> other = heap.insert(4);
+        assertEquals(4, (int) heap.removeNode(other));
+        assertFalse(heap.containsNode(other));
+        assertTrue(heap.remove((Object) 5));
+        assertFalse(heap.remove((Object) 5));
+        assertIsHeap(heap);
+        for (int v : new int[] { -1, 0, 1, 2, 3, 4, 6, 7, 8 }) {
+            assertEquals(v, (int) heap.poll());
+        }
+        try {
+            heap.decreaseKey(heap.insert(1), 2);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public final void testClear() {
+        PairingHeap.Node<Integer> node = heap.insert(10);
+        PairingHeap.Node<Integer> other = heap.insert(-1);
+        heap.poll();
+        heap.poll();
+        assertTrue(heap.containsNode(node));
+        heap.clear();
+        assertTrue(heap.isEmpty());
+        assertFalse(heap.containsNode(node));
+        assertFalse(heap.containsNode(other));
+        try {
+            heap.decreaseKey(node, 5);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+        }
+        try {
+            heap.removeNode(node);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+        }
+        heap.insert(3);
+        assertEquals(3, (int) heap.poll());
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    public final void testForeignNode() {
+        PairingHeap<Integer> other = new PairingHeap<Integer>();
+        other.insert(20);
+        PairingHeap.Node<Integer> node = other.insert(30);
+        other.insert(10);
+        assertFalse(heap.containsNode(node));
+        assertTrue(other.containsNode(node));
+        try {
+            heap.removeNode(node);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+        }
+        try {
+            heap.decreaseKey(node, -5);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+        }
+        assertEquals(9, heap.size());
+        assertIsHeap(heap);
+        assertEquals(3, other.size());
+        assertIsHeap(other);
+        for (int v : new int[] { 10, 20, 30 }) {
+            assertEquals(v, (int) other.poll());
+        }
+        assertTrue(other.isEmpty());
+    }
+
+    @Test
+    public final void testStress() {
+        int count = 100000;
+        heap.clear();
+        ArrayList<PairingHeap.Node<Integer>> live = new ArrayList<PairingHeap.Node<Integer>>();
+        for (int i = 0; i < count; ++i) {
+            int op = rand.nextInt(4);
+            if (live.isEmpty() || op == 0) {
+                live.add(heap.insert(rand.nextInt(1000)));
+            }
+            else if (op == 1) {
+                PairingHeap.Node<Integer> node = live.get(rand.nextInt(live.size()));
+                heap.decreaseKey(node, node.get() - rand.nextInt(100));
+            }
+            else if (op == 2) {
+                PairingHeap.Node<Integer> node = live.remove(rand.nextInt(live.size()));
+                heap.removeNode(node);
+            }
+            else {
+                int min = Integer.MAX_VALUE;
+                for (PairingHeap.Node<Integer> node : live) {
+                    min = Math.min(min, node.get());
+                }
+                live.remove(heap.peekNode());
+                assertEquals(min, (int) heap.poll());
+            }
+            assertEquals(live.size(), heap.size());
+            if ((i & 1023) == 0) {
+                assertIsHeap(heap);
+            }
+        }
+        assertIsHeap(heap);
+    }
+
+    @Test
+    public final void testDijkstra() {
+        int n = 2000;
+        int[][] edges = new int[n][];
+        int[][] weights = new int[n][];
+        for (int u = 0; u < n; ++u) {
+            edges[u] = new int[8];
+            weights[u] = new int[8];
+            for (int k = 0; k < 8; ++k) {
+                edges[u][k] = rand.nextInt(n);
+                weights[u][k] = rand.nextInt(100);
+            }
+        }
+
+        // pairing heap of vertices with decreaseKey
+        final long[] dist = new long[n];
+        Arrays.fill(dist, Long.MAX_VALUE);
+        dist[0] = 0;
+        PairingHeap<long[]> queue = new PairingHeap<long[]>(new Comparator<long[]>() {
+            @Override
+            public int compare(long[] a, long[] b) {
+                return Long.compare(a[0], b[0]);
+            }
+        });
+        ArrayList<PairingHeap.Node<long[]>> nodes = new ArrayList<PairingHeap.Node<long[]>>();
+        for (int u = 0; u < n; ++u) {
+            nodes.add(queue.insert(new long[] { dist[u], u }));
+        }
+        while (!queue.isEmpty()) {
+            long[] top = queue.poll();
+            int u = (int) top[1];
+            nodes.set(u, null);
+            if (top[0] == Long.MAX_VALUE) {
+                continue;
+            }
+            for (int k = 0; k < 8; ++k) {
+                int v = edges[u][k];
+                long d = top[0] + weights[u][k];
+                if (nodes.get(v) != null && d < dist[v]) {
+                    dist[v] = d;
+                    queue.decreaseKey(nodes.get(v), new long[] { d, v });
+                }
+            }
+        }
+
+        // Bellman-Ford for reference
+        long[] check = new long[n];
+        Arrays.fill(check, Long.MAX_VALUE);
+        check[0] = 0;
+        for (boolean changed = true; changed;) {
+            changed = false;
+            for (int u = 0; u < n; ++u) {
+                if (check[u] == Long.MAX_VALUE) {
+                    continue;
+                }
+                for (int k = 0; k < 8; ++k) {
+                    long d = check[u] + weights[u][k];
+                    if (d < check[edges[u][k]]) {
+                        check[edges[u][k]] = d;
+                        changed = true;
+                    }
+                }
+            }
+        }
+        assertArrayEquals(check, dist);
+    }
+}
@@ -0,0 +1,130 @@
+package gkimfl.util;
+
+import static org.junit.Assert.*;
+
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class RadixHeapTest {
+    static final LongKey<Long> IDENTITY = new LongKey<Long>() {
+        @Override
+        public long get(Long o) {
+            return o;
+        }
+    };
+
+    Random rand = new Random();
+    RadixHeap<Long> heap;
+
+    @Before
+    public void setUp() throws Exception {
+        heap = new RadixHeap<Long>(IDENTITY);
+        for (long v : new long[] { 1, 7, 5, 3, 8, 2, 4, 6, 0 }) {
+            heap.offer(v);
+        }
+    }
+
+    @Test
+    public final void testPoll() {
+        for (long i = 0; i <= 8; ++i) {
+            assertEquals(i, (long) heap.peek());
+            assertEquals(i, (long) heap.poll());
+            assertEquals(i, heap.lastKey());
+        }
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    public final void testMonotone() {
+        assertEquals(0, (long) heap.poll());
+        assertEquals(1, (long) heap.poll());
+        heap.offer(1L);
+        try {
+            heap.offer(0L);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("last removed key 1"));
+        }
+        assertTrue(heap.remove((Object) 5L));
+        assertFalse(heap.remove((Object) 5L));
+        for (long v : new long[] { 1, 2, 3, 4, 6, 7, 8 }) {
+            assertEquals(v, (long) heap.poll());
+        }
+        heap.clear();
+        heap.offer(Long.MIN_VALUE);
+        heap.offer(Long.MAX_VALUE);
+        heap.offer(-1L);
+        assertEquals(Long.MIN_VALUE, (long) heap.poll());
+        assertEquals(-1L, (long) heap.poll());
+        assertEquals(Long.MAX_VALUE, (long) heap.poll());
+    }
+
+    @Test
+    public final void testPeekTiedKeys() {
+        RadixHeap<long[]> tied = new RadixHeap<long[]>(new LongKey<long[]>() {
+            @Override
+            public long get(long[] o) {
+                return o[0];
+            }
+        });
+        for (int i = 0; i < 20; ++i) {
+            tied.offer(new long[] { 10 + i % 3, i });
+        }
+        while (!tied.isEmpty()) {
+            long[] first = tied.peek();
+            assertSame(first, tied.peek());
+            assertSame(first, tied.poll());
+        }
+    }
+
+    @Test
+    public final void testPeekThenOfferEarlier() {
+        heap.clear();
+        heap.offer(5L);
+        assertEquals(5, (long) heap.poll());
+        heap.offer(20L);
+        heap.offer(30L);
+        assertEquals(20, (long) heap.peek());
+        assertEquals(5, heap.lastKey());
+        // an event scheduled before the next deadline, but not in the past
+        heap.offer(7L);
+        assertEquals(7, (long) heap.peek());
+        heap.offer(5L);
+        assertEquals(5, (long) heap.poll());
+        assertEquals(7, (long) heap.poll());
+        assertEquals(20, (long) heap.peek());
+        assertEquals(20, (long) heap.poll());
+        assertEquals(30, (long) heap.poll());
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    public final void testStress() {
+        for (long base : new long[] { 0, -1L << 40, Long.MIN_VALUE }) {
+            heap.clear();
+            PriorityQueue<Long> check = new PriorityQueue<Long>();
+            long last = base;
+            for (int i = 0; i < 100000; ++i) {
+                if (!check.isEmpty() && rand.nextBoolean()) {
+                    assertEquals(check.peek(), heap.peek());
+                    last = heap.poll();
+                    assertEquals(check.poll(), (Long) last);
+                }
+                else {
+                    long v = last + (rand.nextBoolean() ? rand.nextInt(100)
+                            : (rand.nextLong() >>> 2));
+                    if (v < last) {
+                        v = Long.MAX_VALUE; // overflow
+                    }
+                    heap.offer(v);
+                    check.offer(v);
+                }
+                assertEquals(check.size(), heap.size());
+            }
+        }
+    }
+}
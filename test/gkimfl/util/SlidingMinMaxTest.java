@@ -0,0 +1,106 @@
+package gkimfl.util;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayDeque;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class SlidingMinMaxTest {
+    Random rand = new Random();
+
+    @Test
+    public final void testWindow() {
+        SlidingMinMax<Integer> window = new SlidingMinMax<Integer>(10);
+        window.add(0, 5);
+        window.add(3, 1);
+        window.add(7, 9);
+        assertEquals(1, (int) window.min());
+        assertEquals(9, (int) window.max());
+        window.add(13, 4); // 5 and 1 expire
+        assertEquals(4, (int) window.min());
+        assertEquals(9, (int) window.max());
+        window.expire(17); // 9 expires
+        assertEquals(4, (int) window.min());
+        assertEquals(4, (int) window.max());
+        try {
+            window.add(12, 0);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+        }
+        window.expire(100);
+        assertTrue(window.isEmpty());
+        try {
+            window.add(12, 0);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+        }
+        try {
+            window.expire(99);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+        }
+        try {
+            window.add(99, 0);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public final void testExtremeTimes() {
+        SlidingMinMax<Integer> window = new SlidingMinMax<Integer>(Long.MAX_VALUE);
+        window.add(Long.MIN_VALUE, 1);
+        window.add(0, 2);
+        window.expire(Long.MAX_VALUE - 1); // 1 expires
+        assertEquals(2, (int) window.min());
+        window.expire(Long.MAX_VALUE); // 2 expires
+        assertTrue(window.isEmpty());
+        window = new SlidingMinMax<Integer>(10);
+        window.add(Long.MIN_VALUE, 1);
+        window.add(Long.MIN_VALUE + 9, 2);
+        assertEquals(1, (int) window.min());
+        window.add(Long.MIN_VALUE + 10, 3); // 1 expires
+        assertEquals(2, (int) window.min());
+    }
+
+    @Test
+    public final void testStress() {
+        for (int span : new int[] { 1, 10, 1000 }) {
+            SlidingMinMax<Integer> window = new SlidingMinMax<Integer>(span);
+            ArrayDeque<long[]> check = new ArrayDeque<long[]>();
+            long time = 0;
+            for (int i = 0; i < 20000; ++i) {
+                // mostly small steps, with occasional large gaps
+                time += rand.nextInt(50) == 0 ? rand.nextInt(2 * span + 1) : rand.nextInt(3);
+                if (rand.nextInt(5) == 0) {
+                    window.expire(time);
+                }
+                else {
+                    int v = rand.nextInt(1000);
+                    window.add(time, v);
+                    check.offer(new long[] { time, v });
+                }
+                while (!check.isEmpty() && check.peek()[0] <= time - span) {
+                    check.poll();
+                }
+                assertEquals(check.size(), window.size());
+                if (!check.isEmpty()) {
+                    long min = Long.MAX_VALUE;
+                    long max = Long.MIN_VALUE;
+                    for (long[] e : check) {
+                        min = Math.min(min, e[1]);
+                        max = Math.max(max, e[1]);
+                    }
+                    assertEquals(min, (long) window.min());
+                    assertEquals(max, (long) window.max());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package gkimfl.util;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class SlidingQuantileTest {
+    Random rand = new Random();
+
+    @Test
+    public final void testMedian() {
+        SlidingQuantile<Integer> median = new SlidingQuantile<Integer>(3, 0.5);
+        median.add(5);
+        assertEquals(5, (int) median.quantile());
+        median.add(1);
+        assertEquals(1, (int) median.quantile());
+        median.add(3);
+        assertEquals(3, (int) median.quantile());
+        median.add(9); // 5 expires
+        assertEquals(3, (int) median.quantile());
+        median.add(7); // 1 expires
+        assertEquals(7, (int) median.quantile());
+        assertEquals(3, (int) median.removeOldest());
+        assertEquals(7, (int) median.quantile());
+        assertEquals(2, median.size());
+    }
+
+    @Test
+    public final void testStress() {
+        for (double q : new double[] { 0, 0.5, 0.9, 0.99, 1 }) {
+            for (int window : new int[] { 1, 2, 7, 100 }) {
+                SlidingQuantile<Integer> tracker = new SlidingQuantile<Integer>(window, q);
+                ArrayDeque<Integer> check = new ArrayDeque<Integer>();
+                for (int i = 0; i < 5000; ++i) {
+                    if (!check.isEmpty() && rand.nextInt(4) == 0) {
+                        assertEquals(check.poll(), tracker.removeOldest());
+                    }
+                    else {
+                        int v = rand.nextInt(100);
+                        tracker.add(v);
+                        check.offer(v);
+                        if (window < check.size()) {
+                            check.poll();
+                        }
+                    }
+                    assertEquals(check.size(), tracker.size());
+                    if (!check.isEmpty()) {
+                        ArrayList<Integer> sorted = new ArrayList<Integer>(check);
+                        Collections.sort(sorted);
+                        int rank = (int) (q * (sorted.size() - 1));
+                        assertEquals(sorted.get(rank), tracker.quantile());
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package gkimfl.util;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TimingWheelTest {
+    Random rand = new Random();
+
+    @Test
+    public final void testAdvance() {
+        TimingWheel<Integer> wheel = new TimingWheel<Integer>(1);
+        wheel.schedule(3, 3);
+        wheel.schedule(1, 1);
+        wheel.schedule(2, 2);
+        wheel.schedule(100, 100);
+        wheel.schedule(5000, 5000);
+        assertEquals(5, wheel.size());
+        List<Integer> out = new ArrayList<Integer>();
+        assertEquals(0, wheel.advance(0, out));
+        assertEquals(2, wheel.advance(2, out));
+        assertEquals(1, wheel.advance(99, out));
+        assertEquals(2, wheel.advance(10000, out));
+        assertEquals(5, out.size());
+        for (int i = 0; i < 5; ++i) {
+            assertEquals(new int[] { 1, 2, 3, 100, 5000 }[i], (int) out.get(i));
+        }
+        assertTrue(wheel.isEmpty());
+    }
+
+    @Test
+    public final void testTickLength() {
+        TimingWheel<Integer> wheel = new TimingWheel<Integer>(10, 4, 1000);
+        wheel.schedule(1, 1001);
+        wheel.schedule(2, 1010);
+        wheel.schedule(3, 1011);
+        wheel.schedule(0, 900);
+        List<Integer> out = new ArrayList<Integer>();
+        assertEquals(1, wheel.advance(1009, out));
+        assertEquals(2, wheel.advance(1010, out));
+        assertEquals(0, wheel.advance(1019, out));
+        assertEquals(1, wheel.advance(1020, out));
+        assertEquals(0, (int) out.get(0));
+        assertEquals(3, (int) out.get(3));
+    }
+
+    @Test
+    public final void testCancel() {
+        TimingWheel<Integer> wheel = new TimingWheel<Integer>(1, 1, 0);
+        TimingWheel.Timer<Integer> near = wheel.schedule(1, 10);
+        TimingWheel.Timer<Integer> far = wheel.schedule(2, 1000);
+        TimingWheel.Timer<Integer> kept = wheel.schedule(3, 10);
+        assertTrue(wheel.cancel(near));
+        assertFalse(wheel.cancel(near));
+        assertTrue(wheel.cancel(far));
+        assertFalse(near.isScheduled());
+        assertFalse(far.isScheduled());
+        assertEquals(1, wheel.size());
+        assertTrue(wheel.overflow.isEmpty());
+        List<Integer> out = new ArrayList<Integer>();
+        assertEquals(1, wheel.advance(2000, out));
+        assertEquals(3, (int) out.get(0));
+        assertFalse(kept.isScheduled());
+        wheel.reschedule(kept, 2500);
+        assertTrue(kept.isScheduled());
+        assertEquals(2500, kept.deadline());
+        assertEquals(1, wheel.advance(2500, out));
+    }
+
+    @Test
+    public final void testForeignTimer() {
+        TimingWheel<Integer> wheel = new TimingWheel<Integer>(1, 1, 0);
+        TimingWheel<Integer> other = new TimingWheel<Integer>(1, 1, 0);
+        TimingWheel.Timer<Integer> near = other.schedule(1, 10);
+        TimingWheel.Timer<Integer> far = other.schedule(2, 1000);
+        wheel.schedule(3, 10);
+        try {
+            wheel.cancel(near);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+        }
+        try {
+            wheel.reschedule(far, 20);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+        }
+        assertEquals(1, wheel.size());
+        assertEquals(2, other.size());
+        assertTrue(near.isScheduled());
+        assertTrue(other.cancel(near));
+        // a timer that is not scheduled may move to another wheel
+        wheel.reschedule(near, 20);
+        assertEquals(2, wheel.size());
+        assertEquals(1, other.size());
+        List<Integer> out = new ArrayList<Integer>();
+        assertEquals(2, wheel.advance(20, out));
+        assertEquals(1, (int) out.get(1));
+    }
+
+    @Test
+    public final void testStress() {
+        // two levels hold 4096 ticks, so longer timers go through the heap
+        final TimingWheel<long[]> wheel = new TimingWheel<long[]>(1, 2, 0);
+        List<TimingWheel.Timer<long[]>> live = new ArrayList<TimingWheel.Timer<long[]>>();
+        List<long[]> out = new ArrayList<long[]>();
+        long now = 0;
+        // a deadline in a tick that has passed expires at the next tick
+        long next = 0;
+        for (int round = 0; round < 2000; ++round) {
+            for (int i = rand.nextInt(50); 0 < i; --i) {
+                long delay = rand.nextInt(4) == 0 ? rand.nextInt(100000) : rand.nextInt(200);
+                long deadline = now + delay - 10;
+                live.add(wheel.schedule(new long[] { Math.max(deadline, next) }, deadline));
+            }
+            for (int i = rand.nextInt(10); 0 < i && !live.isEmpty(); --i) {
+                TimingWheel.Timer<long[]> t = live.remove(rand.nextInt(live.size()));
+                assertTrue(wheel.cancel(t));
+            }
+            now += rand.nextInt(4) == 0 ? rand.nextInt(5000) : rand.nextInt(50);
+            out.clear();
+            wheel.advance(now, out);
+            next = now + 1;
+            List<TimingWheel.Timer<long[]>> expired = new ArrayList<TimingWheel.Timer<long[]>>();
+            List<TimingWheel.Timer<long[]>> kept = new ArrayList<TimingWheel.Timer<long[]>>();
+            for (TimingWheel.Timer<long[]> t : live) {
+                (t.get()[0] <= now ? expired : kept).add(t);
+                assertEquals(t.get()[0] > now, t.isScheduled());
+            }
+            live = kept;
+            assertEquals(expired.size(), out.size());
+            assertEquals(live.size(), wheel.size());
+            long last = Long.MIN_VALUE;
+            for (long[] e : out) {
+                assertTrue(last <= e[0]);
+                last = e[0];
+            }
+            Comparator<Object> identity = new Comparator<Object>() {
+                @Override
+                public int compare(Object a, Object b) {
+                    return Integer.compare(System.identityHashCode(a), System.identityHashCode(b));
+                }
+            };
+            List<Object> want = new ArrayList<Object>();
+            for (TimingWheel.Timer<long[]> t : expired) {
+                want.add(t.get());
+            }
+            List<Object> got = new ArrayList<Object>(out);
+            Collections.sort(want, identity);
+            Collections.sort(got, identity);
+            for (int i = 0; i < want.size(); ++i) {
+                assertSame(want.get(i), got.get(i));
+            }
+        }
+    }
+}